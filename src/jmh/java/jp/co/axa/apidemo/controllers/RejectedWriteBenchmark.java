@@ -0,0 +1,93 @@
+package jp.co.axa.apidemo.controllers;
+
+import jp.co.axa.apidemo.ApiDemoApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+/**
+ * Benchmarks of writes rejected as invalid, from the dispatch of the request to the bytes of the error response,
+ * through the whole Spring context with load shedding disabled.
+ * <p>Rejections per second are the throughput, and bytes allocated per rejection the {@code gc.alloc.rate.norm}
+ * of the GC profiler. It goes through the API only, so that it runs against earlier revisions as well
+ * for a before and after comparison.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectedWriteBenchmark {
+    private static final byte[] INVALID_NEW_EMPLOYEE =
+            "{\"id\":1,\"name\":\"\",\"salary\":-1,\"department\":\"\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INVALID_EMPLOYEE =
+            "{\"id\":2,\"name\":\"\",\"salary\":-1,\"department\":\"\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"false", "true"})
+    public boolean failFast;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApiDemoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.h2.console.enabled=false",
+                        "apidemo.rate-limit.enabled=false",
+                        "apidemo.concurrency.enabled=false",
+                        "apidemo.validation.fast-fail=" + failFast,
+                        "logging.level.root=WARN")
+                .run();
+        mockMvc = webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] rejectedPost() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(INVALID_NEW_EMPLOYEE))
+                .andReturn();
+        return result.getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] rejectedPut() throws Exception {
+        MvcResult result = mockMvc.perform(put("/api/v1/employees/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(INVALID_EMPLOYEE))
+                .andReturn();
+        return result.getResponse().getContentAsByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package jp.co.axa.apidemo.controllers.advice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jp.co.axa.apidemo.entities.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of rendering errors by {@link ApiDemoExceptionAdvice}, up to the JSON bytes of the response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiDemoExceptionAdviceBenchmark {
+    private ApiDemoExceptionAdvice advice;
+    private ServletWebRequest webRequest;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+
+        advice = new ApiDemoExceptionAdvice();
+        advice.setMessageSource(messageSource);
+        advice.setMeterRegistry(new SimpleMeterRegistry());
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("POST", "/api/v1/employees"));
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public byte[] bindException() throws Exception {
+        Employee employee = new Employee("", -1, "");
+        employee.setId(123l);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(employee, "employee");
+        bindingResult.rejectValue("name", "NotEmpty", "must not be empty");
+        bindingResult.rejectValue("salary", "Min", "must be greater than or equal to 0");
+        bindingResult.rejectValue("id", "MustBeEmpty");
+        ResponseEntity<Object> response = advice.handleException(new StacklessBindException(bindingResult), webRequest);
+        return objectMapper.writeValueAsBytes(response.getBody());
+    }
+
+    @Benchmark
+    public byte[] noSuchElementException() throws Exception {
+        ResponseEntity<Object> response = advice.handleNSE(new NoSuchElementException("The employee{id=1} does not exist."));
+        return objectMapper.writeValueAsBytes(response.getBody());
+    }
+}
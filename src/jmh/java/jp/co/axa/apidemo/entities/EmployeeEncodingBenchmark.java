@@ -0,0 +1,102 @@
+package jp.co.axa.apidemo.entities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmarks of encoding a page of employees in each media type negotiated by the employee endpoints,
+ * with and without gzip as the embedded server compresses responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeEncodingBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<Employee> employees;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // built as the HTTP message converters are.
+        switch (format) {
+            case "smile":
+                objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            case "cbor":
+                objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            default:
+                objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Employee employee = new Employee("Employee" + i, 1000 + i, "department" + (i % 10));
+            employee.setId((long) i);
+            employee.setVersion(0l);
+            employee.setLastModified(Instant.now());
+            employees.add(employee);
+        }
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, employees);
+        return out.count;
+    }
+
+    @Benchmark
+    public long encodeGzipped() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, employees);
+        }
+        return out.count;
+    }
+
+    /**
+     * Discards written bytes, only counting them, so that the benchmark is not bound by buffer growth.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package jp.co.axa.apidemo.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jp.co.axa.apidemo.ApiDemoApplication;
+import jp.co.axa.apidemo.entities.Employee;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a page of {@code GET /employees}, read and serialized as full entities or as sparse fieldsets.
+ * <p>Payload size per page is {@code payloadBytes / pages} of the counters,
+ * and allocation per page is reported as {@code gc.alloc.rate.norm} by the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeProjectionBenchmark {
+    private static final int EMPLOYEES = 10_000;
+
+    /**
+     * Fields as of the {@code fields} query parameter, or "all" for full entities.
+     */
+    @Param({"all", "id,name", "id,name,salary,department"})
+    private String fields;
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private ObjectMapper objectMapper;
+    private List<String> selected;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApiDemoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        employeeService = context.getBean(EmployeeService.class);
+        // the one used by HTTP message converters.
+        objectMapper = context.getBean(ObjectMapper.class);
+        selected = fields.equals("all") ? null : Arrays.asList(fields.split(","));
+
+        List<Employee> employees = new ArrayList<>(EMPLOYEES);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add(new Employee("Employee" + i, i, "department" + (i % 10)));
+        }
+        employeeService.saveEmployees(employees);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long page(Payload payload) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        if (selected == null) {
+            objectMapper.writeValue(out, employeeService.retrieveEmployees(null, pageSize));
+        } else {
+            objectMapper.writeValue(out, employeeService.retrieveEmployeeFields(selected, null, pageSize));
+        }
+        payload.pages++;
+        payload.payloadBytes += out.count;
+        return out.count;
+    }
+
+    /**
+     * Bytes and pages written in an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long payloadBytes;
+        public long pages;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+            pages = 0;
+        }
+    }
+
+    /**
+     * Discards written bytes, only counting them, so that the benchmark is not bound by buffer growth.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package jp.co.axa.apidemo.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import jp.co.axa.apidemo.ApiDemoApplication;
+import jp.co.axa.apidemo.entities.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ResolvableType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link EmployeeServiceImpl} against an embedded in-memory H2, through the whole Spring context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+    private static final int EMPLOYEES = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private Cache<Long, Employee> employeeCache;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApiDemoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        employeeService = context.getBean(EmployeeService.class);
+        employeeCache = (Cache<Long, Employee>) context.getBeanProvider(
+                ResolvableType.forClassWithGenerics(Cache.class, Long.class, Employee.class)).getObject();
+
+        List<Employee> employees = new ArrayList<>(EMPLOYEES);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add(new Employee("Employee" + i, i, "department" + (i % 10)));
+        }
+        ids = employeeService.saveEmployees(employees).stream().mapToLong(Employee::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public Employee getCached() {
+        return employeeService.getEmployee(randomId());
+    }
+
+    @Benchmark
+    public Employee getUncached() {
+        long id = randomId();
+        employeeCache.invalidate(id);
+        return employeeService.getEmployee(id);
+    }
+
+    @Benchmark
+    public Employee save() {
+        return employeeService.saveEmployee(new Employee("Saved", 100, "department0"));
+    }
+
+    @Benchmark
+    public void update() {
+        Employee employee = new Employee("Updated", ThreadLocalRandom.current().nextInt(10_000), "department1");
+        employee.setId(randomId());
+        employeeService.updateEmployee(employee, null);
+    }
+
+    @Benchmark
+    public void saveAndDelete() {
+        Employee saved = employeeService.saveEmployee(new Employee("Deleted", 100, "department2"));
+        employeeService.deleteEmployee(saved.getId(), null);
+    }
+}
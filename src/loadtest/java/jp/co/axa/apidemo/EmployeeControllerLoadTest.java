@@ -0,0 +1,238 @@
+package jp.co.axa.apidemo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.services.EmployeeService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * An end-to-end load test of {@link jp.co.axa.apidemo.controllers.EmployeeController} over HTTP.
+ * <p>Requests are issued by an open model: they are scheduled at a constant arrival rate regardless of responses,
+ * and latency is measured from the scheduled time, so that queueing in front of a saturated server is accounted
+ * for instead of being hidden (coordinated omission).</p>
+ * <p>Configurable by system properties:</p>
+ * <ul>
+ *  <li>loadtest.rate: requests per second, 200 by default.</li>
+ *  <li>loadtest.duration: measured seconds, 30 by default.</li>
+ *  <li>loadtest.warmup: seconds before measurement, 5 by default.</li>
+ *  <li>loadtest.mix: weights per operation, "list=10,get=60,create=15,update=10,delete=5" by default.</li>
+ *  <li>loadtest.connections: maximum requests in flight, 256 by default.</li>
+ *  <li>loadtest.employees: employees created before the test, 10000 by default.</li>
+ * </ul>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"logging.level.root=WARN", "apidemo.rate-limit.enabled=false"})
+public class EmployeeControllerLoadTest {
+    private static final int RATE = Integer.getInteger("loadtest.rate", 200);
+    private static final int DURATION = Integer.getInteger("loadtest.duration", 30);
+    private static final int WARMUP = Integer.getInteger("loadtest.warmup", 5);
+    private static final String MIX = System.getProperty("loadtest.mix", "list=10,get=60,create=15,update=10,delete=5");
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 256);
+    private static final int EMPLOYEES = Integer.getInteger("loadtest.employees", 10_000);
+
+    enum Operation { LIST, GET, CREATE, UPDATE, DELETE }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long[] seededIds;
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    @Test
+    public void loadTest() throws Exception {
+        seed();
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new AtomicLong());
+        }
+        Operation[] mix = parseMix(MIX);
+
+        ExecutorService workers = new ThreadPoolExecutor(CONNECTIONS, CONNECTIONS, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        long interval = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(WARMUP);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(DURATION);
+        Random random = new Random(42);
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = mix[random.nextInt(mix.length)];
+            boolean measured = scheduled >= measureFrom;
+            workers.execute(() -> execute(operation, scheduled, measured));
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        report();
+        for (Operation operation : Operation.values()) {
+            assertEquals(0, errors.get(operation).get(), operation + " failed");
+        }
+    }
+
+    private void seed() {
+        List<Employee> employees = new ArrayList<>(EMPLOYEES);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add(new Employee("Employee" + i, i, "department" + (i % 10)));
+        }
+        seededIds = employeeService.saveEmployees(employees).stream().mapToLong(Employee::getId).toArray();
+    }
+
+    private static Operation[] parseMix(String mix) {
+        List<Operation> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split("=");
+            Operation operation = Operation.valueOf(weight[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(weight[1].trim()); i > 0; i--) {
+                weighted.add(operation);
+            }
+        }
+        return weighted.toArray(new Operation[0]);
+    }
+
+    private void execute(Operation operation, long scheduled, boolean measured) {
+        boolean succeeded;
+        try {
+            succeeded = send(operation);
+        } catch (IOException e) {
+            succeeded = false;
+        }
+        if (measured) {
+            latencies.get(operation).recordValue(System.nanoTime() - scheduled);
+            if (!succeeded) {
+                errors.get(operation).incrementAndGet();
+            }
+        }
+    }
+
+    private boolean send(Operation operation) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long seededId = seededIds[random.nextInt(seededIds.length)];
+        switch (operation) {
+            case LIST:
+                return request("GET", "/api/v1/employees?limit=100&after=" + seededId, null).status == 200;
+            case GET:
+                return request("GET", "/api/v1/employees/" + seededId, null).status == 200;
+            case CREATE: {
+                Response response = request("POST", "/api/v1/employees",
+                        "{\"name\":\"Created\",\"salary\":" + random.nextInt(10_000) + ",\"department\":\"department0\"}");
+                if (response.status != 200) {
+                    return false;
+                }
+                createdIds.add(objectMapper.readValue(response.body, Employee.class).getId());
+                return true;
+            }
+            case UPDATE:
+                return request("PUT", "/api/v1/employees/" + seededId,
+                        "{\"id\":" + seededId + ",\"name\":\"Updated\",\"salary\":" + random.nextInt(10_000) + ",\"department\":\"department1\"}").status == 200;
+            case DELETE: {
+                // only employees created by this test are deleted, so that the others stay available.
+                Long id = createdIds.poll();
+                return id == null || request("DELETE", "/api/v1/employees/" + id, null).status == 200;
+            }
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        // drain the body fully, so that the connection is kept alive and reused.
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            if (in != null) {
+                byte[] buffer = new byte[8192];
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    content.write(buffer, 0, read);
+                }
+            }
+            return new Response(status, content.toByteArray());
+        }
+    }
+
+    private void report() {
+        System.out.printf("Load test: %d req/s for %ds (warmup %ds), mix %s%n", RATE, DURATION, WARMUP, MIX);
+        System.out.printf("%-8s %10s %8s %10s %10s %10s %10s%n", "op", "count", "errors", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        Histogram total = new Histogram(3);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            total.add(histogram);
+            printRow(operation.name(), histogram, errors.get(operation).get());
+        }
+        printRow("ALL", total, errors.values().stream().mapToLong(AtomicLong::get).sum());
+        System.out.printf("Achieved throughput: %.1f req/s%n", (double) total.getTotalCount() / DURATION);
+    }
+
+    private static void printRow(String name, Histogram histogram, long errors) {
+        System.out.printf("%-8s %10d %8d %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(), errors,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static class Response {
+        private final int status;
+        private final byte[] body;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.services.EmployeeService;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A comparison of the throughput of the storage profiles: the default in-memory H2, the h2file profile and
+ * the jdbc profile against an H2 server started by the test, printed per profile.
+ * <p>Each profile inserts employees in batches, reads them by pages and updates them one by one, through the service
+ * as the API would. Configurable by system properties:</p>
+ * <ul>
+ *  <li>loadtest.storage.employees: employees inserted, 20000 by default.</li>
+ *  <li>loadtest.storage.updates: employees updated one by one, 2000 by default.</li>
+ * </ul>
+ */
+public class StorageProfileThroughputTest {
+    private static final int EMPLOYEES = Integer.getInteger("loadtest.storage.employees", 20_000);
+    private static final int UPDATES = Integer.getInteger("loadtest.storage.updates", 2_000);
+    private static final int PAGE_SIZE = 500;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void testCompareProfiles() throws IOException, SQLException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Server server = Server.createTcpServer("-tcpPort", Integer.toString(port), "-ifNotExists",
+                "-baseDir", dataDir.resolve("server").toString()).start();
+        try {
+            System.out.printf("%-8s %14s %14s %14s%n", "profile", "inserts/s", "reads/s", "updates/s");
+            measure("default");
+            measure("h2file", "--apidemo.data-dir=" + dataDir.resolve("file"));
+            measure("jdbc", "--spring.datasource.url=jdbc:h2:tcp://localhost:" + port + "/apidemo;QUERY_CACHE_SIZE=64");
+        } finally {
+            server.stop();
+        }
+    }
+
+    private void measure(String profile, String... args) {
+        String[] arguments = new String[args.length + 2];
+        arguments[0] = "--spring.profiles.active=" + profile;
+        arguments[1] = "--logging.level.root=WARN";
+        System.arraycopy(args, 0, arguments, 2, args.length);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments)) {
+            EmployeeService employeeService = context.getBean(EmployeeService.class);
+            // warm up the JIT, statement caches and pool before measuring.
+            insert(employeeService, EMPLOYEES / 10);
+
+            long start = System.nanoTime();
+            List<Employee> inserted = insert(employeeService, EMPLOYEES);
+            double insertSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            int read = 0;
+            Long after = inserted.get(0).getId() - 1;
+            while (read < EMPLOYEES) {
+                List<Employee> page = employeeService.retrieveEmployees(after, PAGE_SIZE);
+                read += page.size();
+                after = page.get(page.size() - 1).getId();
+            }
+            double readSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            for (int i = 0; i < UPDATES; i++) {
+                Employee employee = inserted.get(i);
+                employee.setSalary(employee.getSalary() + 1);
+                employeeService.updateEmployee(employee, null);
+            }
+            double updateSeconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(EMPLOYEES, read);
+            System.out.printf("%-8s %14.0f %14.0f %14.0f%n", profile,
+                    EMPLOYEES / insertSeconds, read / readSeconds, UPDATES / updateSeconds);
+        }
+    }
+
+    private static List<Employee> insert(EmployeeService employeeService, int count) {
+        List<Employee> inserted = new ArrayList<>(count);
+        List<Employee> chunk = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < count; i++) {
+            chunk.add(new Employee("Employee" + i, 1000 + i, "department" + (i % 10)));
+            if (chunk.size() == PAGE_SIZE || i == count - 1) {
+                inserted.addAll(employeeService.saveEmployees(chunk));
+                chunk = new ArrayList<>(PAGE_SIZE);
+            }
+        }
+        return inserted;
+    }
+}
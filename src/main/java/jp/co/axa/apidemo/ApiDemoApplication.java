@@ -1,13 +1,95 @@
 package jp.co.axa.apidemo;
 
+import jp.co.axa.apidemo.models.ImportResult;
+import jp.co.axa.apidemo.models.TransferFormat;
+import jp.co.axa.apidemo.services.EmployeeTransferService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 @SpringBootApplication
+@EnableScheduling
 public class ApiDemoApplication {
+	private static final Logger logger = LoggerFactory.getLogger(ApiDemoApplication.class);
 
 	public static void main(String[] args) {
+		ApplicationArguments arguments = new DefaultApplicationArguments(args);
+		if (arguments.containsOption("import") || arguments.containsOption("export")) {
+			System.exit(transfer(arguments));
+		}
 		SpringApplication.run(ApiDemoApplication.class, args);
 	}
 
+	/**
+	 * Import or export employees without starting the web server, in the format of the file extension (csv or ndjson):
+	 * <ul>
+	 *  <li>{@code --import=<file> [--checkpoint=<name>]}, where the checkpoint defaults to the file name.</li>
+	 *  <li>{@code --export=<file>}</li>
+	 * </ul>
+	 * @return the exit status.
+	 */
+	static int transfer(ApplicationArguments arguments) {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiDemoApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(arguments.getSourceArgs())) {
+			EmployeeTransferService transferService = context.getBean(EmployeeTransferService.class);
+			if (arguments.containsOption("import")) {
+				Path file = Paths.get(option(arguments, "import"));
+				String checkpoint = arguments.containsOption("checkpoint") ? option(arguments, "checkpoint") : file.getFileName().toString();
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					ImportResult result = transferService.importEmployees(channel, formatOf(file), checkpoint);
+					logger.info("Imported {} employees from {}, skipping {} already imported.", result.getImported(), file, result.getSkipped());
+				}
+			} else {
+				Path file = Paths.get(option(arguments, "export"));
+				try (FileChannel channel = FileChannel.open(file,
+						StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+					long exported = transferService.exportEmployees(channel, formatOf(file));
+					logger.info("Exported {} employees to {}.", exported, file);
+				}
+			}
+			return 0;
+		} catch (BindException e) {
+			for (FieldError error : e.getFieldErrors()) {
+				logger.error("{} : {}", error.getField(), error.getDefaultMessage());
+			}
+			return 1;
+		} catch (IOException | IllegalArgumentException e) {
+			logger.error(e.getMessage(), e);
+			return 1;
+		}
+	}
+
+	private static String option(ApplicationArguments arguments, String name) {
+		List<String> values = arguments.getOptionValues(name);
+		if (values.size() != 1 || values.get(0).isEmpty()) {
+			throw new IllegalArgumentException(String.format("--%s must have one value.", name));
+		}
+		return values.get(0);
+	}
+
+	private static TransferFormat formatOf(Path file) {
+		TransferFormat format = TransferFormat.ofExtension(StringUtils.getFilenameExtension(file.getFileName().toString()));
+		if (format == null) {
+			throw new IllegalArgumentException(String.format("The format of %s is not supported, use .csv or .ndjson.", file));
+		}
+		return format;
+	}
 }
@@ -0,0 +1,64 @@
+package jp.co.axa.apidemo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jp.co.axa.apidemo.controllers.AsyncExecutionHandlerAdapter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+
+/**
+ * A configuration of the {@code async} execution mode, selected by {@code apidemo.execution.mode=async}, running API
+ * requests on {@code apidemo.execution.threads} threads, the maximum size of the connection pool by default, with
+ * {@code apidemo.execution.queue-capacity} more requests waiting, as many by default. Requests over both are rejected
+ * with 503, which takes the place of the concurrency limit of {@link WebConfig}.
+ * <p>Container threads are only held to read requests and write responses, so that slow clients don't take threads
+ * from requests hitting the database. Requests of this mode time out after {@code spring.mvc.async.request-timeout}.</p>
+ * <p>The executor is not a bean, so that it doesn't replace the task executor auto-configured for streams;
+ * it is measured as {@value #EXECUTOR_METRIC_NAME} by the {@code executor.*} metrics.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "apidemo.execution.mode", havingValue = "async")
+public class AsyncExecutionConfig implements WebMvcRegistrations {
+    static final String EXECUTOR_METRIC_NAME = "apidemo.execution";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${apidemo.execution.threads:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int threads;
+
+    @Value("${apidemo.execution.queue-capacity:${apidemo.execution.threads:${spring.datasource.hikari.maximum-pool-size:10}}}")
+    private int queueCapacity;
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    @PostConstruct
+    public void init() {
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("api-exec-");
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), EXECUTOR_METRIC_NAME, Collections.emptyList())
+                .bindTo(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @Override
+    public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        return new AsyncExecutionHandlerAdapter(executor);
+    }
+}
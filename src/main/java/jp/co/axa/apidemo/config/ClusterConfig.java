@@ -0,0 +1,42 @@
+package jp.co.axa.apidemo.config;
+
+import jp.co.axa.apidemo.repositories.EmployeeChangeRepository;
+import jp.co.axa.apidemo.services.ChangeLogInvalidationTransport;
+import jp.co.axa.apidemo.services.InvalidationTransport;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * A configuration of nodes sharing a database.
+ * <p>A node is identified by {@code apidemo.node-id}, random by default, and tells the others of its writes through
+ * the {@link InvalidationTransport} selected by {@code apidemo.invalidation.transport}.</p>
+ */
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    public String nodeId(@Value("${apidemo.node-id:}") String nodeId) {
+        return StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "apidemo.invalidation.transport", havingValue = "none", matchIfMissing = true)
+    public InvalidationTransport noInvalidationTransport() {
+        return InvalidationTransport.NONE;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "apidemo.invalidation.transport", havingValue = "change-log")
+    public ChangeLogInvalidationTransport changeLogInvalidationTransport(EmployeeChangeRepository employeeChangeRepository,
+                                                                         @Qualifier("nodeId") String nodeId,
+                                                                         @Value("${apidemo.invalidation.lookback:10s}") Duration lookback) {
+        return new ChangeLogInvalidationTransport(employeeChangeRepository, nodeId, lookback);
+    }
+}
@@ -0,0 +1,37 @@
+package jp.co.axa.apidemo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jp.co.axa.apidemo.entities.Employee;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * A configuration of the in-process cache of {@link Employee} keyed by id.
+ * <p>The cache is bounded by {@code apidemo.cache.employee.maximum-size} entries,
+ * each of which expires {@code apidemo.cache.employee.expire-after-write} after loaded,
+ * and records hit/miss/eviction statistics, which are published as {@code cache.*} metrics.</p>
+ */
+@Configuration
+public class EmployeeCacheConfig {
+
+    @Bean
+    public Cache<Long, Employee> employeeCache(@Value("${apidemo.cache.employee.maximum-size:10000}") long maximumSize,
+                                               @Value("${apidemo.cache.employee.expire-after-write:10m}") Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public MeterBinder employeeCacheMetrics(Cache<Long, Employee> employeeCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, employeeCache, "employees");
+    }
+}
@@ -0,0 +1,30 @@
+package jp.co.axa.apidemo.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * A configuration of binary encodings of API bodies besides JSON, negotiated by {@code Accept} and {@code Content-Type}:
+ * CBOR as {@code application/cbor} and Smile as {@code application/x-jackson-smile}.
+ * <p>Both mappers are built from the builder customized by {@code spring.jackson.*}, so they encode the same fields
+ * as JSON does. JSON stays the default, as its converter precedes them.</p>
+ * <p>Responses from {@code server.compression.min-response-size} on are also gzipped if the client accepts it.</p>
+ */
+@Configuration
+public class EncodingConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
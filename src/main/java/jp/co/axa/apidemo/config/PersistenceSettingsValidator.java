@@ -0,0 +1,97 @@
+package jp.co.axa.apidemo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Validates the persistence settings in effect at startup, whichever profile they come from, and logs them.
+ * <p>Startup fails where schema generation would drop a persistent database, and warns of settings
+ * working against each other, such as a concurrency limit beyond the size of the connection pool.</p>
+ * <p>Never initialized lazily, as nothing else depends on it.</p>
+ */
+@Component
+@Lazy(false)
+public class PersistenceSettingsValidator {
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceSettingsValidator.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * The pool of the data source, or the pools of the primary and the replica.
+     */
+    @Autowired
+    private List<HikariDataSource> pools;
+
+    @Value("${apidemo.concurrency.enabled:true}")
+    private boolean concurrencyEnabled;
+
+    @Value("${apidemo.concurrency.limit:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int concurrencyLimit;
+
+    @Value("${apidemo.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @PostConstruct
+    public void validate() throws SQLException {
+        String url;
+        String database;
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            url = metaData.getURL();
+            database = metaData.getDatabaseProductName() + " " + metaData.getDatabaseProductVersion();
+        }
+        Map<String, Object> properties = entityManagerFactory.getProperties();
+        String ddlAuto = setting(properties, AvailableSettings.HBM2DDL_AUTO, "none");
+        int batchSize = Integer.parseInt(setting(properties, AvailableSettings.STATEMENT_BATCH_SIZE, "1"));
+        logger.info("Database {} at {}, with schema {}.", database, url, ddlAuto);
+        logger.info("Hibernate batch size {}, ordered inserts {}, ordered updates {}, second-level cache {}, query cache {}.",
+                batchSize,
+                setting(properties, AvailableSettings.ORDER_INSERTS, "false"),
+                setting(properties, AvailableSettings.ORDER_UPDATES, "false"),
+                setting(properties, AvailableSettings.USE_SECOND_LEVEL_CACHE, "false"),
+                setting(properties, AvailableSettings.USE_QUERY_CACHE, "false"));
+
+        if (!url.contains(":mem:") && (ddlAuto.equals("create") || ddlAuto.equals("create-drop"))) {
+            throw new IllegalStateException(String.format("The schema %s would drop the data of %s.", ddlAuto, url));
+        }
+        if (batchSize <= 1) {
+            logger.warn("Writes are not batched, as the batch size is {}.", batchSize);
+        } else if (batchChunkSize % batchSize != 0) {
+            logger.warn("The chunk size {} is not a multiple of the batch size {}, so the last batch of each chunk is partial.",
+                    batchChunkSize, batchSize);
+        }
+        for (HikariDataSource pool : pools) {
+            logger.info("Connection pool {} of {} to {} connections, timeout {}ms, lifetime {}ms, keepalive {}ms.",
+                    pool.getPoolName(), pool.getMinimumIdle(), pool.getMaximumPoolSize(),
+                    pool.getConnectionTimeout(), pool.getMaxLifetime(), pool.getKeepaliveTime());
+            if (concurrencyEnabled && concurrencyLimit > pool.getMaximumPoolSize()) {
+                logger.warn("The concurrency limit {} is beyond the {} connections of the pool, so requests may queue for connections.",
+                        concurrencyLimit, pool.getMaximumPoolSize());
+            }
+        }
+    }
+
+    private static String setting(Map<String, Object> properties, String name, String defaultValue) {
+        return Objects.toString(properties.get(name), defaultValue).trim();
+    }
+}
@@ -0,0 +1,65 @@
+package jp.co.axa.apidemo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A configuration of a read replica, enabled by {@code apidemo.datasource.replica.url}, which read-only
+ * transactions are routed to by {@link ReplicaRoutingDataSource}.
+ * <p>The primary is configured by {@code spring.datasource.*} as without a replica, and the replica by
+ * {@code apidemo.datasource.replica.url}, {@code username}, {@code password} and {@code hikari.*},
+ * where the credentials default to the primary's.</p>
+ */
+@Configuration
+@ConditionalOnProperty("apidemo.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("apidemo.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${apidemo.datasource.replica.url}") String url,
+                                              @Value("${apidemo.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${apidemo.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("apidemo-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.Target.PRIMARY, primaryDataSource);
+        targets.put(ReplicaRoutingDataSource.Target.REPLICA, replicaDataSource);
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
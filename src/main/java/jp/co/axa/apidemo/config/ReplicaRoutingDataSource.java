@@ -0,0 +1,54 @@
+package jp.co.axa.apidemo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * A data source routing read-only transactions to a replica and everything else to the primary.
+ * <p>Reads are routed to the primary as well while {@link #isPrimaryRequired()}, i.e. for a client which has just
+ * written, so that it reads its own writes, or to load what must not lag behind the primary.</p>
+ * <p>The transaction must be marked read-only before a connection is taken, so it is to be wrapped in
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+
+    /**
+     * Route reads of the current thread to the primary, until {@link #clearPrimaryRequired()}.
+     */
+    public static void requirePrimary() {
+        primaryRequired.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryRequired() {
+        primaryRequired.remove();
+    }
+
+    public static boolean isPrimaryRequired() {
+        return primaryRequired.get() != null;
+    }
+
+    /**
+     * Run an action reading from the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (isPrimaryRequired()) {
+            return action.get();
+        }
+        requirePrimary();
+        try {
+            return action.get();
+        } finally {
+            clearPrimaryRequired();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPrimaryRequired() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
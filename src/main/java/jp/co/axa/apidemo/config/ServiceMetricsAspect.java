@@ -0,0 +1,65 @@
+package jp.co.axa.apidemo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An aspect timing every public method of services into {@value #METRIC_NAME},
+ * tagged by service, method and thrown exception as Spring Data does for repository invocations.
+ * <p>Timers are looked up once per method and outcome, then kept, so that timing an invocation neither builds
+ * tags nor goes through the registry.</p>
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+    static final String METRIC_NAME = "apidemo.service.invocations";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * jp.co.axa.apidemo.services.*ServiceImpl.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Class<?> exception = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass();
+            throw e;
+        } finally {
+            sample.stop(timer(((MethodSignature) joinPoint.getSignature()).getMethod(), exception));
+        }
+    }
+
+    private Timer timer(Method method, Class<?> exception) {
+        TimerKey key = new TimerKey(method, exception);
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(METRIC_NAME)
+                    .tag("service", method.getDeclaringClass().getSimpleName())
+                    .tag("method", method.getName())
+                    .tag("exception", exception == null ? "None" : exception.getSimpleName())
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    @Value
+    private static class TimerKey {
+        Method method;
+        Class<?> exception;
+    }
+}
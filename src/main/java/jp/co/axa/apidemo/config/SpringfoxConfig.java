@@ -0,0 +1,50 @@
+package jp.co.axa.apidemo.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * A workaround to let springfox start along with actuator.
+ * <p>Actuator endpoints are mapped by path patterns, which springfox 3.0.0 can't handle,
+ * so those handler mappings are hidden from springfox.</p>
+ * <p>Springfox takes the handler mappings in the constructor of {@link WebMvcRequestHandlerProvider} and offers no way
+ * to filter them, so they are removed from its private list by reflection, once at startup. Springfox 3.0.0 is its
+ * last release, so the field won't move; should it, startup fails here with the reason rather than within springfox.
+ * The alternative without reflection would be to give up either actuator or Swagger UI.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "springfox.documentation.enabled", havingValue = "true", matchIfMissing = true)
+public class SpringfoxConfig {
+
+    @Bean
+    public static BeanPostProcessor springfoxHandlerProviderBeanPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    List<RequestMappingInfoHandlerMapping> mappings = handlerMappings(bean);
+                    mappings.removeIf(mapping -> mapping.getPatternParser() != null);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RequestMappingInfoHandlerMapping> handlerMappings(Object bean) {
+        Field field = ReflectionUtils.findField(bean.getClass(), "handlerMappings");
+        if (field == null) {
+            throw new IllegalStateException("No handlerMappings in " + bean.getClass().getName() + " to hide actuator endpoints from");
+        }
+        ReflectionUtils.makeAccessible(field);
+        return (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean);
+    }
+}
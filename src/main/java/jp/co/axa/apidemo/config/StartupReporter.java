@@ -0,0 +1,49 @@
+package jp.co.axa.apidemo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Logs the time from JVM start to readiness along with the memory footprint, to compare startup settings
+ * such as the lean profile and class data sharing by.
+ * <p>The resident set size is read from {@code /proc/self/status}, so it is only reported on Linux.</p>
+ */
+@Component
+public class StartupReporter {
+    private static final Logger logger = LoggerFactory.getLogger(StartupReporter.class);
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        Runtime runtime = Runtime.getRuntime();
+        logger.info("Ready in {}ms since JVM start, with {} classes loaded, {}MB of heap used and RSS {}.",
+                ManagementFactory.getRuntimeMXBean().getUptime(),
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024),
+                residentSetSize());
+    }
+
+    private static String residentSetSize() {
+        try {
+            List<String> lines = Files.readAllLines(PROC_STATUS);
+            for (String line : lines) {
+                if (line.startsWith("VmRSS:")) {
+                    return line.substring("VmRSS:".length()).trim();
+                }
+            }
+        } catch (IOException e) {
+            // not on Linux.
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,27 @@
+package jp.co.axa.apidemo.config;
+
+import org.hibernate.validator.HibernateValidatorConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.validation.MessageInterpolatorFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+/**
+ * A configuration of fast-fail validation, enabled by {@code apidemo.validation.fast-fail}.
+ * <p>Constraints of an object stop being validated at its first violation, so that a rejected write costs one
+ * violation to build, resolve and render rather than one per invalid field, at the expense of telling
+ * the client of a single error at a time. It applies to request bodies as well as elements of batches.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name="apidemo.validation.fast-fail", havingValue="true")
+public class ValidationConfig {
+
+    @Bean
+    public static LocalValidatorFactoryBean defaultValidator() {
+        LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.setMessageInterpolator(new MessageInterpolatorFactory().getObject());
+        validator.getValidationPropertyMap().put(HibernateValidatorConfiguration.FAIL_FAST, "true");
+        return validator;
+    }
+}
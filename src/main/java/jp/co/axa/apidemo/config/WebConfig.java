@@ -0,0 +1,95 @@
+package jp.co.axa.apidemo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.axa.apidemo.controllers.ConcurrencyLimitInterceptor;
+import jp.co.axa.apidemo.controllers.RateLimitInterceptor;
+import jp.co.axa.apidemo.controllers.ReadYourWritesInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * A configuration of interceptors of API requests, shedding load by rate per client and then by concurrency,
+ * and routing reads of clients which have just written to the primary database when there is a replica.
+ * <p>The rate limit is enabled by {@code apidemo.rate-limit.enabled}, of {@code apidemo.rate-limit.rate} tokens
+ * per second and {@code apidemo.rate-limit.burst} tokens at most per client, which requests take by their
+ * {@link jp.co.axa.apidemo.controllers.RequestCost}.</p>
+ * <p>The concurrency limit is enabled by {@code apidemo.concurrency.enabled}. It starts at {@code apidemo.concurrency.limit},
+ * which defaults to the maximum size of the connection pool, as every API request needs a connection, and adapts to
+ * latency over {@code apidemo.concurrency.latency-threshold} milliseconds, within
+ * [{@code apidemo.concurrency.min-limit}, {@code apidemo.concurrency.max-limit}]. In the {@code async} execution mode,
+ * the bounded executor of {@link AsyncExecutionConfig} limits concurrency instead.</p>
+ * <p>With {@code apidemo.datasource.replica.url}, reads of a client are routed to the primary for
+ * {@code apidemo.datasource.replica.stickiness} milliseconds after its writes, which should exceed the replication lag.</p>
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    static final String CONCURRENCY_LIMIT_METRIC = "apidemo.concurrency.limit";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${apidemo.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${apidemo.rate-limit.rate:100}")
+    private double rate;
+
+    @Value("${apidemo.rate-limit.burst:200}")
+    private int burst;
+
+    @Value("${apidemo.rate-limit.max-clients:100000}")
+    private long maxClients;
+
+    @Value("${apidemo.concurrency.enabled:true}")
+    private boolean concurrencyEnabled;
+
+    @Value("${apidemo.concurrency.limit:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int limit;
+
+    @Value("${apidemo.concurrency.min-limit:1}")
+    private int minLimit;
+
+    @Value("${apidemo.concurrency.max-limit:${apidemo.concurrency.limit:${spring.datasource.hikari.maximum-pool-size:10}}}")
+    private int maxLimit;
+
+    @Value("${apidemo.concurrency.max-wait:20}")
+    private long maxWaitMillis;
+
+    @Value("${apidemo.concurrency.latency-threshold:500}")
+    private long latencyThresholdMillis;
+
+    @Value("${apidemo.execution.mode:servlet}")
+    private String executionMode;
+
+    @Value("${apidemo.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${apidemo.datasource.replica.stickiness:5000}")
+    private long stickinessMillis;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // rate limited first, so that requests over the rate of their client never take a permit from the others.
+        if (rateLimitEnabled) {
+            registry.addInterceptor(new RateLimitInterceptor(rate, burst, maxClients))
+                    .addPathPatterns("/api/**");
+        }
+        if (concurrencyEnabled && !"async".equals(executionMode)) {
+            ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(limit, minLimit, maxLimit, maxWaitMillis, latencyThresholdMillis);
+            Gauge.builder(CONCURRENCY_LIMIT_METRIC, interceptor, ConcurrencyLimitInterceptor::getLimit)
+                    .register(meterRegistry);
+            // long polls hold no connection while waiting, so they would only starve the others of permits.
+            registry.addInterceptor(interceptor)
+                    .addPathPatterns("/api/**")
+                    .excludePathPatterns("/api/v1/employees/changes");
+        }
+        if (!replicaUrl.isEmpty()) {
+            registry.addInterceptor(new ReadYourWritesInterceptor(stickinessMillis))
+                    .addPathPatterns("/api/**");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package jp.co.axa.apidemo.controllers;
+
+import jp.co.axa.apidemo.config.ReplicaRoutingDataSource;
+import jp.co.axa.apidemo.controllers.advice.OverloadedException;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A handler adapter running the API controller methods on a bounded executor instead of the request thread,
+ * which is released to the container while they run.
+ * <p>Arguments are resolved on the request thread, then the method is submitted to the executor and responded
+ * as a {@link CompletableFuture}. When the executor has no thread and no room in its queue left, the request is
+ * rejected at once with 503 and {@code Retry-After}, as by {@link ConcurrencyLimitInterceptor}.</p>
+ * <p>Methods which are asynchronous already, i.e. long polls and streams, and handlers of other packages than the
+ * controllers' (actuator, documentation, errors) are invoked as usual.</p>
+ */
+public class AsyncExecutionHandlerAdapter extends RequestMappingHandlerAdapter {
+    private static final Class<?>[] ASYNC_TYPES = {Callable.class, WebAsyncTask.class, DeferredResult.class,
+            CompletionStage.class, ListenableFuture.class, ResponseBodyEmitter.class, StreamingResponseBody.class};
+
+    private final Executor executor;
+
+    public AsyncExecutionHandlerAdapter(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        if (!isControllerPackage(handlerMethod) || isAsync(handlerMethod)) {
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+        return new ServletInvocableHandlerMethod(handlerMethod) {
+            @Override
+            protected Object doInvoke(Object... args) {
+                return submit(() -> super.doInvoke(args));
+            }
+        };
+    }
+
+    private CompletableFuture<Object> submit(Callable<Object> invocation) {
+        // read-your-writes routing is decided by an interceptor on the request thread.
+        boolean primaryRequired = ReplicaRoutingDataSource.isPrimaryRequired();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (primaryRequired) {
+                    ReplicaRoutingDataSource.requirePrimary();
+                }
+                try {
+                    result.complete(invocation.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    ReplicaRoutingDataSource.clearPrimaryRequired();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new OverloadedException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests", 1);
+        }
+        return result;
+    }
+
+    private static boolean isControllerPackage(HandlerMethod handlerMethod) {
+        return handlerMethod.getBeanType().getPackage() == AsyncExecutionHandlerAdapter.class.getPackage();
+    }
+
+    private static boolean isAsync(HandlerMethod handlerMethod) {
+        ResolvableType returnType = ResolvableType.forMethodReturnType(handlerMethod.getMethod());
+        if (HttpEntity.class.isAssignableFrom(returnType.toClass())) {
+            returnType = returnType.getGeneric();
+        }
+        for (Class<?> type : ASYNC_TYPES) {
+            if (type.isAssignableFrom(returnType.toClass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
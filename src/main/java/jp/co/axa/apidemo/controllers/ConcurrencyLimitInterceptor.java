@@ -0,0 +1,126 @@
+package jp.co.axa.apidemo.controllers;
+
+import jp.co.axa.apidemo.controllers.advice.OverloadedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An interceptor bounding the number of requests handled at once, by default to the size of the connection pool.
+ * <p>A request which can't be admitted within {@code maxWaitMillis} is rejected with 503 at once,
+ * instead of blocking a servlet thread while waiting for a database connection.
+ * A permit is held until the request completes, including asynchronous processing such as streaming.</p>
+ * <p>The limit adapts to latency by AIMD when {@code latencyThresholdMillis} is positive: it grows by one per limit's
+ * worth of requests completed within the threshold, up to {@code maxLimit}, and is cut by {@value #BACKOFF} when one
+ * is not, down to {@code minLimit}, though only by requests admitted since the last cut, so that a slow burst
+ * is counted once.
+ * Asynchronous requests are not sampled, as their duration is the size of their response rather than the load.</p>
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".PERMIT";
+    private static final double BACKOFF = 0.9;
+
+    private final LimitSemaphore permits;
+    private final long maxWaitMillis;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    public ConcurrencyLimitInterceptor(int limit, int minLimit, int maxLimit, long maxWaitMillis, long latencyThresholdMillis) {
+        this.permits = new LimitSemaphore(limit);
+        this.limit = new AtomicInteger(limit);
+        this.minLimit = Math.min(minLimit, limit);
+        this.maxLimit = Math.max(maxLimit, limit);
+        this.maxWaitMillis = maxWaitMillis;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+    }
+
+    /**
+     * @return the current limit.
+     */
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // the permit acquired on the initial dispatch covers the asynchronous one.
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+            throw new OverloadedException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests", 1);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+            if (permit instanceof Long && latencyThresholdNanos > 0) {
+                adapt((Long) permit, System.nanoTime());
+            }
+        }
+    }
+
+    private void adapt(long admittedAt, long completedAt) {
+        if (completedAt - admittedAt > latencyThresholdNanos) {
+            long last = lastDecrease.get();
+            if (admittedAt - last > 0 && lastDecrease.compareAndSet(last, completedAt)) {
+                int current;
+                int next;
+                do {
+                    current = limit.get();
+                    next = Math.max(minLimit, (int) (current * BACKOFF));
+                } while (!limit.compareAndSet(current, next));
+                successes.set(0);
+                permits.reducePermits(current - next);
+            }
+        } else if (successes.incrementAndGet() >= limit.get()) {
+            successes.set(0);
+            int current;
+            do {
+                current = limit.get();
+                if (current >= maxLimit) {
+                    return;
+                }
+            } while (!limit.compareAndSet(current, current + 1));
+            permits.release();
+        }
+    }
+
+    /**
+     * A semaphore which permits can be taken away, even while they are acquired.
+     */
+    private static class LimitSemaphore extends Semaphore {
+        LimitSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
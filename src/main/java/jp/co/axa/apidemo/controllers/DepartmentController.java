@@ -0,0 +1,40 @@
+package jp.co.axa.apidemo.controllers;
+
+import jp.co.axa.apidemo.entities.DepartmentStats;
+import jp.co.axa.apidemo.services.DepartmentStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A controller provides REST service relating to departments of {@link jp.co.axa.apidemo.entities.Employee}.
+ * <p><ul>Following methods are supported:
+ *   <li>/departments/stats GET</li>
+ * </ul></p>
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class DepartmentController {
+
+    @Autowired
+    private DepartmentStatsService departmentStatsService;
+
+    /**
+     * Get headcount and total/min/max/average salary per department.
+     * <p>If a department is specified but has no employees, an error will be responded.</p>
+     * @param department only the statistics of this department if specified.
+     * @return List
+     */
+    @GetMapping("/departments/stats")
+    public List<DepartmentStats> getDepartmentStats(@RequestParam(name="department", required=false) String department) {
+        if (department == null) {
+            return departmentStatsService.retrieveDepartmentStats();
+        }
+        return Collections.singletonList(departmentStatsService.getDepartmentStats(department));
+    }
+}
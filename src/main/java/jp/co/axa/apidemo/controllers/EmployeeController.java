@@ -1,53 +1,332 @@
 package jp.co.axa.apidemo.controllers;
 
+import jp.co.axa.apidemo.controllers.advice.StacklessBindException;
 import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.entities.EmployeeChange;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import jp.co.axa.apidemo.models.EmployeeFilter;
+import jp.co.axa.apidemo.models.EmployeeSummary;
+import jp.co.axa.apidemo.models.ImportResult;
+import jp.co.axa.apidemo.models.TransferFormat;
+import jp.co.axa.apidemo.repositories.EmployeeRepositoryCustom;
+import jp.co.axa.apidemo.services.EmployeeChangeService;
 import jp.co.axa.apidemo.services.EmployeeService;
+import jp.co.axa.apidemo.services.EmployeeTransferService;
+import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
 import org.springframework.validation.ValidationUtils;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * A controller provides REST service relating to {@link Employee}.
  * <p><ul>Following methods are supported:
  *   <li>/employees GET</li>
+ *   <li>/employees/search GET</li>
+ *   <li>/employees/changes GET</li>
+ *   <li>/employees/stream GET</li>
  *   <li>/employees/{id} GET</li>
  *   <li>/employees POST</li>
  *   <li>/employees/{id} DELETE</li>
  *   <li>/employees/{id} PUT</li>
+ *   <li>/employees:batch POST</li>
+ *   <li>/employees:batch PUT</li>
+ *   <li>/employees:batch DELETE</li>
+ *   <li>/employees:import POST</li>
+ *   <li>/employees:export GET</li>
  * </ul></p>
  */
 @RestController
 @RequestMapping("/api/v1")
 public class EmployeeController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_WAIT_SECONDS = 60;
+    // tokens of the rate limit taken by pages, by batches and by whole tables, against 1 of a single employee.
+    static final int LIST_COST = 5;
+    static final int BATCH_COST = 10;
+    static final int TRANSFER_COST = 50;
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private EmployeeChangeService employeeChangeService;
+
+    @Autowired
+    private EmployeeTransferService employeeTransferService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     /**
-     * Get a list of employees available in the system.
+     * Get a page of employees available in the system, ordered by id.
+     * <p>Pages are addressed by keyset: {@code after} is the last id of the previous page.
+     * When more employees may follow, the id to pass as {@code after} is responded in the {@value #NEXT_CURSOR_HEADER}
+     * header, along with a {@code Link} header of {@code rel="next"}.</p>
+     * <p>Responded with an ETag which changes whenever employees are written, so that a request with a matching
+     * {@code If-None-Match} is responded as 304 Not Modified without querying employees.</p>
+     * <p>Encoded as JSON by default, or as CBOR or Smile by {@code Accept}.</p>
+     * @param after the last id of the previous page, omitted for the first page.
+     * @param limit page size, clamped into [1, {@value #MAX_PAGE_SIZE}].
+     * @param webRequest
      * @return List
      */
     @GetMapping("/employees")
-    public List<Employee> getEmployees() {
-        List<Employee> employees = employeeService.retrieveEmployees();
-        return employees;
+    @RequestCost(LIST_COST)
+    public ResponseEntity<List<Employee>> getEmployees(@RequestParam(name="after", required=false) Long after,
+                                                       @RequestParam(name="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit,
+                                                       WebRequest webRequest) {
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        int pageSize = pageSize(limit);
+        return page(employeeService.retrieveEmployees(after, pageSize), pageSize, Employee::getId);
+    }
+
+    /**
+     * Get a page of employees as {@link #getEmployees(Long, int, WebRequest)} does, responding only the specified fields.
+     * <p>Unspecified fields are neither selected from database nor written to the response.
+     * {@code id} is always included, as it is the cursor of pages.</p>
+     * @param fields comma separated names among {@link EmployeeRepositoryCustom#FIELDS}, i.e. {@code id,name}.
+     * @param after the last id of the previous page, omitted for the first page.
+     * @param limit page size, clamped into [1, {@value #MAX_PAGE_SIZE}].
+     * @param webRequest
+     * @return List
+     * @throws BindException if any of the fields is unknown.
+     */
+    @GetMapping(value="/employees", params="fields")
+    @RequestCost(LIST_COST)
+    public ResponseEntity<List<Map<String, Object>>> getEmployeeFields(@RequestParam(name="fields") List<String> fields,
+                                                                       @RequestParam(name="after", required=false) Long after,
+                                                                       @RequestParam(name="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit,
+                                                                       WebRequest webRequest) throws BindException {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        List<String> unknown = new ArrayList<>();
+        for (String field : fields) {
+            String name = field.trim();
+            if (EmployeeRepositoryCustom.FIELDS.contains(name)) {
+                selected.add(name);
+            } else if (!name.isEmpty()) {
+                unknown.add(name);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            BindingResult bindingResult = new MapBindingResult(new HashMap<>(), "employees");
+            bindingResult.rejectValue("fields", "Unknown", new Object[]{String.join(",", unknown)}, null);
+            throw new StacklessBindException(bindingResult);
+        }
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        int pageSize = pageSize(limit);
+        return page(employeeService.retrieveEmployeeFields(selected, after, pageSize), pageSize, row -> (Long) row.get("id"));
+    }
+
+    private boolean isNotModified(WebRequest webRequest) {
+        // read before querying, so that a write during the query at worst makes the tag older than the page.
+        // weak, as it is shared by every encoding of the page, which also lets the server compress it.
+        return webRequest.checkNotModified("W/" + eTag(employeeService.getChangeTag()));
+    }
+
+    /**
+     * Search a page of employees matching all specified conditions, ordered by id.
+     * <p>Pages are addressed by keyset as {@link #getEmployees(Long, int, WebRequest)} does.</p>
+     * @param filter conditions as query parameters: department, minSalary, maxSalary and namePrefix.
+     * @param after the last id of the previous page, omitted for the first page.
+     * @param limit page size, clamped into [1, {@value #MAX_PAGE_SIZE}].
+     * @return List
+     */
+    @GetMapping("/employees/search")
+    @RequestCost(LIST_COST)
+    public ResponseEntity<List<EmployeeSummary>> searchEmployees(EmployeeFilter filter,
+                                                                 @RequestParam(name="after", required=false) Long after,
+                                                                 @RequestParam(name="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = pageSize(limit);
+        return page(employeeService.searchEmployees(filter, after, pageSize), pageSize, EmployeeSummary::getId);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    private static <T> ResponseEntity<List<T>> page(List<T> items, int pageSize, Function<T, Long> idOf) {
+        return page(items, pageSize, idOf, "after", ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    private static <T> ResponseEntity<List<T>> page(List<T> items, int pageSize, Function<T, Long> idOf,
+                                                    String cursorParam, UriComponentsBuilder current) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == pageSize) {
+            Long nextCursor = idOf.apply(items.get(items.size() - 1));
+            String next = current.cloneBuilder()
+                    .replaceQueryParam(cursorParam, nextCursor)
+                    .replaceQueryParam("limit", pageSize)
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+                    .header(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", next));
+        }
+        return response.body(items);
+    }
+
+    /**
+     * Get changes of employees logged after {@code since}, ordered by seq.
+     * <p>A consumer syncs incrementally by passing the seq of the last change it has applied as {@code since},
+     * starting from 0. Pages are linked as {@link #getEmployees(Long, int, WebRequest)} does, by {@code since}.</p>
+     * <p>Changes are kept for {@code apidemo.change-log.retention}, so the oldest cursor a consumer can resume from
+     * is the seq of the last pruned change. Behind it, 410 is responded with that seq in {@code X-Oldest-Cursor},
+     * from which the consumer resumes after resyncing all employees, applying changes of newer versions only.</p>
+     * @param since the seq of the last change already seen.
+     * @param limit page size, clamped into [1, {@value #MAX_PAGE_SIZE}].
+     * @return List
+     */
+    @GetMapping("/employees/changes")
+    public ResponseEntity<List<EmployeeChange>> getEmployeeChanges(@RequestParam(name="since", defaultValue="0") long since,
+                                                                   @RequestParam(name="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = pageSize(limit);
+        return page(employeeChangeService.retrieveChanges(since, pageSize), pageSize, EmployeeChange::getSeq,
+                "since", ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    /**
+     * Get changes of employees as {@link #getEmployeeChanges(long, int)} does, but by long polling:
+     * if no change is logged after {@code since}, the response is held until one is, for up to {@code wait} seconds.
+     * <p>An empty list is responded if none is logged in time.</p>
+     * @param since the seq of the last change already seen.
+     * @param limit page size, clamped into [1, {@value #MAX_PAGE_SIZE}].
+     * @param wait seconds to wait at most, clamped into [1, {@value #MAX_WAIT_SECONDS}].
+     * @return List
+     */
+    @GetMapping(value="/employees/changes", params="wait")
+    public DeferredResult<ResponseEntity<List<EmployeeChange>>> awaitEmployeeChanges(@RequestParam(name="since", defaultValue="0") long since,
+                                                                                     @RequestParam(name="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit,
+                                                                                     @RequestParam(name="wait") int wait) {
+        int pageSize = pageSize(limit);
+        // captured up front, as the result may be completed on another thread than the request's.
+        UriComponentsBuilder current = ServletUriComponentsBuilder.fromCurrentRequest();
+        long timeout = TimeUnit.SECONDS.toMillis(Math.min(Math.max(wait, 1), MAX_WAIT_SECONDS));
+        DeferredResult<ResponseEntity<List<EmployeeChange>>> result = new DeferredResult<>(timeout,
+                () -> page(Collections.<EmployeeChange>emptyList(), pageSize, EmployeeChange::getSeq, "since", current));
+        CompletableFuture<List<EmployeeChange>> changes = employeeChangeService.awaitChanges(since, pageSize);
+        changes.whenComplete((items, e) -> {
+            if (e != null) {
+                result.setErrorResult(e);
+            } else {
+                result.setResult(page(items, pageSize, EmployeeChange::getSeq, "since", current));
+            }
+        });
+        result.onCompletion(() -> changes.cancel(false));
+        return result;
+    }
+
+    /**
+     * Get all employees available in the system as one JSON array, ordered by id.
+     * <p>Employees are written to the response as they are fetched from database,
+     * so memory usage does not grow with the number of employees.</p>
+     * <p>If {@code Accept} includes {@code application/x-ndjson}, employees are written as newline delimited JSON
+     * instead, so that consumers can process them one by one as they arrive.</p>
+     * @param accept
+     * @return StreamingResponseBody
+     */
+    @GetMapping("/employees/stream")
+    @RequestCost(TRANSFER_COST)
+    public ResponseEntity<StreamingResponseBody> streamEmployees(@RequestHeader(name=HttpHeaders.ACCEPT, required=false) String accept) {
+        // negotiated here, as two mappings both producing for */* would be ambiguous.
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                if (ndjson) {
+                    generator.setRootValueSeparator(null);
+                } else {
+                    generator.writeStartArray();
+                }
+                employeeService.streamEmployees(employee -> {
+                    try {
+                        generator.writeObject(employee);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
      * Get an employee which id is specified from URI path.
      * <p>If the specified employee not exist, an error will be responded.</p>
+     * <p>Responded with the version of the employee as a strong ETag and its last modified time, so that a request with
+     * a matching {@code If-None-Match} or {@code If-Modified-Since} is responded as 304 Not Modified without a body.</p>
      * @param employeeId
+     * @param webRequest
      * @return Employee
      */
     @GetMapping("/employees/{employeeId}")
-    public Employee getEmployee(@PathVariable(name="employeeId")Long employeeId) {
-        return employeeService.getEmployee(employeeId);
+    public Employee getEmployee(@PathVariable(name="employeeId")Long employeeId, WebRequest webRequest) {
+        Employee employee = employeeService.getEmployee(employeeId);
+        if (employee.getVersion() != null && webRequest.checkNotModified(eTag(employee.getVersion()),
+                employee.getLastModified() == null ? -1 : employee.getLastModified().toEpochMilli())) {
+            return null;
+        }
+        return employee;
     }
 
     /**
@@ -55,58 +334,276 @@ public class EmployeeController {
      * Before creation following validations are performed,  if failed detail message as response is returned.
      * <p>employee.id is empty and
      * <p>constraints declared within {@link Employee} definition.
+     * <p>With an {@code Idempotency-Key}, a retry is responded with the employee created by the first request.</p>
      * @param employee
      * @param bindingResult
+     * @param idempotencyKey
      * @return Employee
      * @throws BindException
      */
     @PostMapping("/employees")
-    public Employee saveEmployee(@Valid @RequestBody Employee employee, BindingResult bindingResult) throws BindException {
+    public Employee saveEmployee(@Valid @RequestBody Employee employee, BindingResult bindingResult,
+                                 @RequestHeader(name=IDEMPOTENCY_KEY_HEADER, required=false) String idempotencyKey,
+                                 HttpServletRequest request, HttpServletResponse response) throws BindException {
         if (employee.getId() != null) {
             bindingResult.rejectValue("id", "MustBeEmpty");
         }
         if (bindingResult.hasErrors()) {
-            throw new BindException(bindingResult);
+            throw new StacklessBindException(bindingResult);
         }
-        return employeeService.saveEmployee(employee);
+        return writeOnce(idempotencyKey, employee, request, response, () -> employeeService.saveEmployee(employee));
     }
 
     /**
      * Delete an employee which id is specified from URI path.
      * <p>If the specified employee not exist, it will respond with an error.</p>
+     * <p>If {@code If-Match} is specified with the ETag of the employee, it is deleted only if not modified since.</p>
      * @param employeeId
+     * @param ifMatch
      */
     @DeleteMapping("/employees/{employeeId}")
-    public void deleteEmployee(@PathVariable(name="employeeId")Long employeeId){
-        if (!employeeService.existsById(employeeId)) {
-            throw new NoSuchElementException(String.format("The employee{id=%d} does not exist.", employeeId));
-        }
-        employeeService.deleteEmployee(employeeId);
+    public void deleteEmployee(@PathVariable(name="employeeId")Long employeeId,
+                               @RequestHeader(name=HttpHeaders.IF_MATCH, required=false) String ifMatch){
+        employeeService.deleteEmployee(employeeId, expectedVersion(ifMatch));
     }
 
     /**
      * Update an employee which id as one segment is specified from URI path.
      * <p>Besides constraints declared within {@link Employee}, it also is not valid if the id included in the request body
      * differs the id in URI path.</p>
+     * <p>If the specified employee not exist, it will respond with an error.</p>
+     * <p>If {@code If-Match} is specified with the ETag of the employee, it is updated only if not modified since.</p>
+     * <p>With an {@code Idempotency-Key}, a retry is responded as the first request without updating again,
+     * so that it doesn't fail on the version the first request has incremented.</p>
      * @param employee
      * @param bindingResult
      * @param employeeId
+     * @param ifMatch
+     * @param idempotencyKey
      * @throws BindException
      */
     @PutMapping("/employees/{employeeId}")
     public void updateEmployee(@RequestBody @Valid Employee employee,
                                BindingResult bindingResult,
-                               @PathVariable(name="employeeId")Long employeeId) throws BindException {
+                               @PathVariable(name="employeeId")Long employeeId,
+                               @RequestHeader(name=HttpHeaders.IF_MATCH, required=false) String ifMatch,
+                               @RequestHeader(name=IDEMPOTENCY_KEY_HEADER, required=false) String idempotencyKey,
+                               HttpServletRequest request, HttpServletResponse response) throws BindException {
         ValidationUtils.rejectIfEmpty(bindingResult, "id", "MustNotNull");
         if (employee.getId() != null && !employee.getId().equals(employeeId)) {
             bindingResult.rejectValue("id", "MustBeConsistent");
         }
         if (bindingResult.hasErrors()) {
-            throw new BindException(bindingResult);
+            throw new StacklessBindException(bindingResult);
+        }
+        writeOnce(idempotencyKey, employee, request, response, () -> {
+            employeeService.updateEmployee(employee, expectedVersion(ifMatch));
+            return null;
+        });
+    }
+
+    /**
+     * Write once per {@code Idempotency-Key} of the client if any, responding to the requests of the key as
+     * to the first one, with {@value #IDEMPOTENT_REPLAYED_HEADER} but for the first one, or with 409 while it is in progress.
+     * <p>Requests of a key must be the same method, URI, {@code If-Match} and body.</p>
+     */
+    private <T> T writeOnce(String idempotencyKey, Object body, HttpServletRequest request, HttpServletResponse response,
+                            Supplier<T> write) {
+        if (idempotencyKey == null) {
+            return write.get();
+        }
+        Principal principal = request.getUserPrincipal();
+        // no header value contains a line break, so keys of different clients can't be the same.
+        String key = principal == null ? idempotencyKey : principal.getName() + "\n" + idempotencyKey;
+        // taken before writing, which may assign the id of the body.
+        String fingerprint = idempotencyStore.fingerprint(body, request.getMethod(), request.getRequestURI(), request.getHeader(HttpHeaders.IF_MATCH));
+        IdempotencyStore.Outcome<T> outcome = idempotencyStore.execute(key, fingerprint, write);
+        if (outcome.isReplayed()) {
+            response.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return outcome.getResult();
+    }
+
+    private static String eTag(Object value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Parse the version expected by an {@code If-Match} header, which must be a single strong ETag of an employee.
+     * @return the version, or null if any version is acceptable.
+     * @throws OptimisticLockingFailureException if no version can match.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            try {
+                return Long.valueOf(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException e) {
+                // falls through, as it can't be an ETag of an employee.
+            }
+        }
+        // weak ETags never match for If-Match, see RFC 7232 section 3.1.
+        throw new OptimisticLockingFailureException(String.format("The ETag %s does not match.", ifMatch));
+    }
+
+    /**
+     * Create employees in bulk from a JSON array.
+     * <p>Every employee is validated as {@link #saveEmployee(Employee, BindingResult)} does before anything is written,
+     * and errors are reported per item, i.e. {@code employees[3].name}, or {@code employees[3]} for a null item.</p>
+     * @param employees
+     * @return List of the created employees
+     * @throws BindException
+     */
+    @PostMapping(value="/employees:batch", consumes=MediaType.APPLICATION_JSON_VALUE)
+    @RequestCost(BATCH_COST)
+    public List<Employee> saveEmployees(@RequestBody List<Employee> employees) throws BindException {
+        BindingResult bindingResult = validateBatch(employees);
+        for (int i = 0; i < employees.size(); i++) {
+            if (employees.get(i) != null && employees.get(i).getId() != null) {
+                bindingResult.rejectValue(String.format("employees[%d].id", i), "MustBeEmpty");
+            }
+        }
+        if (bindingResult.hasErrors()) {
+            throw new StacklessBindException(bindingResult);
+        }
+        return employeeService.saveEmployees(employees);
+    }
+
+    /**
+     * Create employees in bulk from newline delimited JSON, one employee per line.
+     * @see #saveEmployees(List)
+     */
+    @PostMapping(value="/employees:batch", consumes=MediaType.APPLICATION_NDJSON_VALUE)
+    @RequestCost(BATCH_COST)
+    public List<Employee> saveEmployeesNdjson(InputStream body, HttpServletRequest request) throws BindException, IOException {
+        return saveEmployees(readNdjson(body, request));
+    }
+
+    /**
+     * Update employees in bulk from a JSON array.
+     * <p>Every employee is validated as {@link #updateEmployee(Employee, BindingResult, Long, String)} does,
+     * and if any of them does not exist, an error will be responded.</p>
+     * @param employees
+     * @throws BindException
+     */
+    @PutMapping(value="/employees:batch", consumes=MediaType.APPLICATION_JSON_VALUE)
+    @RequestCost(BATCH_COST)
+    public void updateEmployees(@RequestBody List<Employee> employees) throws BindException {
+        BindingResult bindingResult = validateBatch(employees);
+        for (int i = 0; i < employees.size(); i++) {
+            if (employees.get(i) != null) {
+                ValidationUtils.rejectIfEmpty(bindingResult, String.format("employees[%d].id", i), "MustNotNull");
+            }
         }
-        if (employeeService.existsById(employeeId)) {
-            employeeService.updateEmployee(employee);
+        if (bindingResult.hasErrors()) {
+            throw new StacklessBindException(bindingResult);
         }
+        employeeService.updateEmployees(employees);
     }
 
-}
+    /**
+     * Update employees in bulk from newline delimited JSON, one employee per line.
+     * @see #updateEmployees(List)
+     */
+    @PutMapping(value="/employees:batch", consumes=MediaType.APPLICATION_NDJSON_VALUE)
+    @RequestCost(BATCH_COST)
+    public void updateEmployeesNdjson(InputStream body, HttpServletRequest request) throws BindException, IOException {
+        updateEmployees(readNdjson(body, request));
+    }
+
+    /**
+     * Delete employees in bulk, which ids are specified as a JSON array.
+     * <p>Ids of employees which do not exist are ignored.</p>
+     * @param employeeIds
+     */
+    @DeleteMapping(value="/employees:batch", consumes=MediaType.APPLICATION_JSON_VALUE)
+    @RequestCost(BATCH_COST)
+    public void deleteEmployees(@RequestBody List<Long> employeeIds) {
+        employeeService.deleteEmployees(employeeIds);
+    }
+
+    /**
+     * Import employees from a CSV or NDJSON file in the request body, as of {@code Content-Type},
+     * creating a new employee per record.
+     * <p>CSV must have a header line with columns {@code name}, {@code salary} and {@code department},
+     * and other columns such as {@code id} are ignored. The body is streamed in batched transactions,
+     * and if a record is invalid, an error is responded with its number, leaving the batches before it imported.
+     * Resend the file with the same {@code checkpoint} to resume after the records already imported.</p>
+     * @param checkpoint the name of the checkpoint to resume from and advance, omitted to import every record.
+     * @param request
+     * @return ImportResult
+     * @throws BindException
+     * @throws IOException
+     */
+    @PostMapping(value="/employees:import", consumes={"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @RequestCost(TRANSFER_COST)
+    public ImportResult importEmployees(@RequestParam(name="checkpoint", required=false) String checkpoint,
+                                        HttpServletRequest request) throws BindException, IOException {
+        TransferFormat format = TransferFormat.ofMediaType(MediaType.parseMediaType(request.getContentType()));
+        return employeeTransferService.importEmployees(Channels.newChannel(request.getInputStream()), format, checkpoint);
+    }
+
+    /**
+     * Export all employees as a CSV or NDJSON file, in id order.
+     * <p>Employees are written to the response as they are read through a database cursor,
+     * so memory usage does not grow with the number of employees.</p>
+     * @param format {@code csv} or {@code ndjson}.
+     * @return StreamingResponseBody
+     * @throws BindException if the format is unknown.
+     */
+    @GetMapping("/employees:export")
+    @RequestCost(TRANSFER_COST)
+    public ResponseEntity<StreamingResponseBody> exportEmployees(@RequestParam(name="format", defaultValue="csv") String format) throws BindException {
+        TransferFormat transferFormat = TransferFormat.ofExtension(format);
+        if (transferFormat == null) {
+            BindingResult bindingResult = new MapBindingResult(new HashMap<>(), "export");
+            bindingResult.rejectValue("format", "Unknown", new Object[]{format}, null);
+            throw new StacklessBindException(bindingResult);
+        }
+        StreamingResponseBody body = out -> employeeTransferService.exportEmployees(Channels.newChannel(out), transferFormat);
+        return ResponseEntity.ok()
+                .contentType(transferFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("employees." + transferFormat.getExtension()).build().toString())
+                .body(body);
+    }
+
+    private BindingResult validateBatch(List<Employee> employees) {
+        EmployeeBatch batch = new EmployeeBatch(employees);
+        BindingResult bindingResult = new BeanPropertyBindingResult(batch, "batch");
+        new SpringValidatorAdapter(validator).validate(batch, bindingResult);
+        // null items, such as [{...}, null] or a "null" line, which @Valid skips.
+        for (int i = 0; i < employees.size(); i++) {
+            if (employees.get(i) == null) {
+                bindingResult.rejectValue(String.format("employees[%d]", i), "MustNotNull");
+            }
+        }
+        return bindingResult;
+    }
+
+    private List<Employee> readNdjson(InputStream body, HttpServletRequest request) throws IOException {
+        // read line by line as trees, so that a null line reaches validation as a null item, which it reports.
+        List<Employee> employees = new ArrayList<>();
+        try (MappingIterator<JsonNode> lines = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                JsonNode line = lines.nextValue();
+                employees.add(line.isNull() ? null : objectMapper.treeToValue(line, Employee.class));
+            }
+            return employees;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException(e.getOriginalMessage(), e, new ServletServerHttpRequest(request));
+        }
+    }
+
+    /**
+     * A holder of employees requested in bulk, so that constraints are validated per item.
+     */
+    @Data
+    static class EmployeeBatch {
+        @Valid
+        private final List<Employee> employees;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package jp.co.axa.apidemo.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jp.co.axa.apidemo.controllers.advice.IdempotencyConflictException;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A store of the responses of writes by their {@code Idempotency-Key}, so that a retried write is responded
+ * as the first one was, without being written again.
+ * <p>Keys are kept for {@code apidemo.idempotency.expire-after-write} after their request started, up to
+ * {@code apidemo.idempotency.max-keys} of them, the least recently used of which are evicted beyond.
+ * A request arriving while the one of its key is still in progress is rejected with 409 at once, rather than
+ * holding a request thread until the first one completes, so that concurrent retries are written once and
+ * a retry storm can't take every thread. A key used again by a different request is rejected with 422.</p>
+ * <p>Failed writes are not kept, so that they can be retried with the same key.
+ * Keys are kept in memory, so a retry must reach the same node to be recognized.</p>
+ */
+@Component
+public class IdempotencyStore {
+    private final Cache<String, Entry> entries;
+    // bodies serialized with sorted properties, so that their fingerprints don't depend on the order of fields.
+    private final ObjectMapper canonicalMapper;
+
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            @Value("${apidemo.idempotency.max-keys:100000}") long maxKeys,
+                            @Value("${apidemo.idempotency.expire-after-write:24h}") Duration expireAfterWrite) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.canonicalMapper = objectMapper.copy()
+                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+                .configure(SerializationFeature.INDENT_OUTPUT, false);
+    }
+
+    /**
+     * Fingerprint a request by the SHA-256 of its attributes and its body serialized as canonical JSON.
+     * @param body the body of the request, as bound.
+     * @param attributes what else identifies the request, such as its method and path.
+     * @return the fingerprint.
+     */
+    public String fingerprint(Object body, String... attributes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+        for (String attribute : attributes) {
+            digest.update(String.valueOf(attribute).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        try {
+            digest.update(canonicalMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    /**
+     * Write once per key.
+     * @param key the key, scoped by the client if needed.
+     * @param fingerprint the {@link #fingerprint} of the request, which must be the same for every request of the key.
+     * @param write the write, of which result is the response.
+     * @return the response, and whether it is the one of an earlier request.
+     * @throws IdempotencyConflictException if the key is of another request, or its request is still in progress.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(String key, String fingerprint, Supplier<T> write) {
+        Entry entry = new Entry(fingerprint);
+        Entry existing = entries.asMap().putIfAbsent(key, entry);
+        if (existing == null) {
+            T result;
+            try {
+                result = write.get();
+            } catch (RuntimeException | Error e) {
+                entries.asMap().remove(key, entry);
+                entry.response.completeExceptionally(e);
+                throw e;
+            }
+            entry.response.complete(result);
+            return new Outcome<>(result, false);
+        }
+
+        if (!existing.fingerprint.equals(fingerprint)) {
+            throw new IdempotencyConflictException(HttpStatus.UNPROCESSABLE_ENTITY, "The Idempotency-Key has been used by another request");
+        }
+        // completed exceptionally only until the failed entry is removed, after which a retry writes again.
+        if (!existing.response.isDone() || existing.response.isCompletedExceptionally()) {
+            throw new IdempotencyConflictException(HttpStatus.CONFLICT, "A request with the Idempotency-Key is still in progress");
+        }
+        return new Outcome<>((T) existing.response.getNow(null), true);
+    }
+
+    /**
+     * A response of a write, and whether it is replayed from an earlier request.
+     */
+    @Data
+    public static class Outcome<T> {
+        private final T result;
+        private final boolean replayed;
+    }
+
+    private static class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package jp.co.axa.apidemo.controllers;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jp.co.axa.apidemo.controllers.advice.OverloadedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An interceptor limiting the rate of requests per client by token buckets, so that a client sending
+ * expensive requests in bulk can't starve the others.
+ * <p>A client, identified by its principal or else its address, has a bucket of {@code burst} tokens refilled at
+ * {@code rate} tokens per second, and a request takes as many tokens as its handler method's {@link RequestCost},
+ * up to {@code burst}. A request finding too few tokens is rejected with 429 at once, with a {@code Retry-After}
+ * of when they will have been refilled.</p>
+ * <p>A bucket is a single {@link AtomicLong} of the time it will be full again (the generic cell rate algorithm),
+ * taken from by compare-and-set, so that no request waits on a lock. Buckets of clients idle for as long as
+ * a bucket takes to refill expire, as they are full anyway.</p>
+ */
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+    private final Cache<String, AtomicLong> buckets;
+    private final ConcurrentMap<Method, Integer> costs = new ConcurrentHashMap<>();
+    private final int burst;
+    private final long nanosPerToken;
+    private final long burstNanos;
+
+    public RateLimitInterceptor(double rate, int burst, long maxClients) {
+        this.burst = burst;
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        this.burstNanos = nanosPerToken * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(burstNanos))
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the initial dispatch has already been charged for the asynchronous one.
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        AtomicLong bucket = buckets.get(clientOf(request), client -> new AtomicLong(System.nanoTime()));
+        long increment = costOf(handler) * nanosPerToken;
+        while (true) {
+            long now = System.nanoTime();
+            long full = bucket.get();
+            long next = (full - now > 0 ? full : now) + increment;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                long retryAfterSeconds = Math.max(1, (excess + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                throw new OverloadedException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests", retryAfterSeconds);
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the principal name, or the remote address, which is the client's one behind proxies
+     * when {@code server.forward-headers-strategy} is set.
+     */
+    private static String clientOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    private int costOf(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return RequestCost.DEFAULT;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        Integer cost = costs.get(handlerMethod.getMethod());
+        if (cost == null) {
+            RequestCost requestCost = handlerMethod.getMethodAnnotation(RequestCost.class);
+            cost = Math.min(burst, requestCost == null ? RequestCost.DEFAULT : requestCost.value());
+            costs.putIfAbsent(handlerMethod.getMethod(), cost);
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,64 @@
+package jp.co.axa.apidemo.controllers;
+
+import jp.co.axa.apidemo.config.ReplicaRoutingDataSource;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An interceptor routing the reads of a client which has just written to the primary instead of a replica,
+ * so that it reads its own writes whichever node it is balanced to.
+ * <p>A write sets a cookie {@value #COOKIE_NAME} of when the replica will have caught up, {@code stickinessMillis}
+ * later, and requests until then read from the primary.</p>
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    static final String COOKIE_NAME = "apidemo-read-primary-until";
+
+    private final long stickinessMillis;
+
+    public ReadYourWritesInterceptor(long stickinessMillis) {
+        this.stickinessMillis = stickinessMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.OPTIONS) {
+            // set before handling, as the response may be committed by then.
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + stickinessMillis));
+            cookie.setPath(request.getContextPath() + "/");
+            cookie.setMaxAge((int) TimeUnit.MILLISECONDS.toSeconds(stickinessMillis + 999));
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+            return true;
+        }
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie != null && isFuture(cookie.getValue())) {
+            ReplicaRoutingDataSource.requirePrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingDataSource.clearPrimaryRequired();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingDataSource.clearPrimaryRequired();
+    }
+
+    private static boolean isFuture(String millis) {
+        try {
+            return Long.parseLong(millis) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
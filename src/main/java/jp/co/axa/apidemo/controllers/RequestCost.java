@@ -0,0 +1,20 @@
+package jp.co.axa.apidemo.controllers;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The number of tokens a request to the annotated handler method takes from the rate limit of its client,
+ * as enforced by {@link RateLimitInterceptor}. Handler methods not annotated cost {@value #DEFAULT}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RequestCost {
+    int DEFAULT = 1;
+
+    int value();
+}
@@ -1,8 +1,17 @@
 package jp.co.axa.apidemo.controllers.advice;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.axa.apidemo.services.ChangesPrunedException;
 import lombok.Data;
+import lombok.Value;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
 import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,13 +22,15 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
-import org.springframework.web.servlet.support.RequestContext;
 
-import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.NoSuchElementException;
 
 /**
@@ -30,50 +41,164 @@ import java.util.NoSuchElementException;
  *  <li>{@link NoSuchElementException}.</li>
  *  <li>{@link BindException}</li>
  *  <li>{@link HttpMessageNotReadableException}</li>
+ *  <li>{@link OverloadedException}</li>
+ *  <li>{@link OptimisticLockingFailureException}</li>
+ *  <li>{@link IdempotencyConflictException}</li>
+ *  <li>{@link ChangesPrunedException}, with the seq to resume from in {@value #OLDEST_CURSOR_HEADER}.</li>
  * </ul>
+ * Each of them is counted into {@value #ERRORS_METRIC} tagged by its type.
+ * <p>As rejections are expected in bulk, rendering them allocates little: validation messages are resolved once
+ * per object, field, code, default message and locale, up to {@value #MAX_CACHED_MESSAGES} of them, and timestamps
+ * are shared within a millisecond. Messages with arguments other than those of a constraint may depend on the
+ * rejected value, so they are resolved every time.</p>
  */
 @RestControllerAdvice
 public class ApiDemoExceptionAdvice extends ResponseEntityExceptionHandler {
+    static final String ERRORS_METRIC = "apidemo.errors";
+    static final int MAX_CACHED_MESSAGES = 1024;
+    static final String OLDEST_CURSOR_HEADER = "X-Oldest-Cursor";
+
+    private final Cache<MessageKey, String> fieldMessages = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_MESSAGES)
+            .build();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile Timestamp timestamp = new Timestamp(0, LocalDateTime.ofInstant(Instant.EPOCH, zone));
+
+    private MessageSource messageSource;
+
+    private Counter notFoundErrors;
+    private Counter validationErrors;
+    private Counter malformedJsonErrors;
+    private Counter overloadedErrors;
+    private Counter preconditionFailedErrors;
+    private Counter idempotencyConflictErrors;
+    private Counter changesPrunedErrors;
+
     @Autowired
-    HttpServletRequest request;
+    void setMeterRegistry(MeterRegistry meterRegistry) {
+        // registered once up front, so that counting an error is a single increment.
+        notFoundErrors = Counter.builder(ERRORS_METRIC).tag("type", "not_found").register(meterRegistry);
+        validationErrors = Counter.builder(ERRORS_METRIC).tag("type", "validation").register(meterRegistry);
+        malformedJsonErrors = Counter.builder(ERRORS_METRIC).tag("type", "malformed_json").register(meterRegistry);
+        overloadedErrors = Counter.builder(ERRORS_METRIC).tag("type", "overloaded").register(meterRegistry);
+        preconditionFailedErrors = Counter.builder(ERRORS_METRIC).tag("type", "precondition_failed").register(meterRegistry);
+        idempotencyConflictErrors = Counter.builder(ERRORS_METRIC).tag("type", "idempotency_conflict").register(meterRegistry);
+        changesPrunedErrors = Counter.builder(ERRORS_METRIC).tag("type", "changes_pruned").register(meterRegistry);
+    }
+
+    @Autowired
+    void setMessageSource(MessageSource messageSource) {
+        this.messageSource = messageSource;
+        fieldMessages.invalidateAll();
+    }
 
     @Override
     protected ResponseEntity<Object> handleHttpMessageNotReadable(HttpMessageNotReadableException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
+        malformedJsonErrors.increment();
         return ResponseEntity
                 .status(status)
-                .body(new ErrorResponse(LocalDateTime.now(), "Malformed JSON request", Collections.emptyList()));
+                .body(new ErrorResponse(now(), "Malformed JSON request", Collections.emptyList()));
     }
 
     @Override
     protected ResponseEntity<Object> handleBindException(BindException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
-        return handleBE(ex, this.request, status);
+        validationErrors.increment();
+        return handleBE(ex, status);
     }
 
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<Object> handleNSE(NoSuchElementException ex) {
+        notFoundErrors.increment();
         return ResponseEntity
                 .status(HttpStatus.NOT_FOUND)
-                .body(new ErrorResponse(LocalDateTime.now(), ex.getMessage(), Collections.emptyList()));
+                .body(new ErrorResponse(now(), ex.getMessage(), Collections.emptyList()));
+    }
+
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Object> handleOverloaded(OverloadedException ex) {
+        overloadedErrors.increment();
+        return ResponseEntity
+                .status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse(now(), ex.getMessage(), Collections.emptyList()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOLF(OptimisticLockingFailureException ex) {
+        preconditionFailedErrors.increment();
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(new ErrorResponse(now(), ex.getMessage(), Collections.emptyList()));
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Object> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        idempotencyConflictErrors.increment();
+        return ResponseEntity
+                .status(ex.getStatus())
+                .body(new ErrorResponse(now(), ex.getMessage(), Collections.emptyList()));
+    }
+
+    @ExceptionHandler(ChangesPrunedException.class)
+    public ResponseEntity<Object> handleChangesPruned(ChangesPrunedException ex) {
+        changesPrunedErrors.increment();
+        return ResponseEntity
+                .status(HttpStatus.GONE)
+                .header(OLDEST_CURSOR_HEADER, String.valueOf(ex.getPrunedSeq()))
+                .body(new ErrorResponse(now(), ex.getMessage(), Collections.emptyList()));
     }
 
-    private ResponseEntity<Object> handleBE(BindException ex, HttpServletRequest req, HttpStatus status) {
+    private ResponseEntity<Object> handleBE(BindException ex, HttpStatus status) {
         List<String> validationErrors = Collections.emptyList();
         if (ex.hasErrors()) {
             validationErrors = new ArrayList<>(ex.getErrorCount());
-            RequestContext context = new RequestContext(req);
+            Locale locale = LocaleContextHolder.getLocale();
             // extract validation error message per field.
             for (FieldError error: ex.getFieldErrors()) {
-                // load messages from external resources(i.e. messages.properties), and fallback default if unavailable.
-                try {
-                    validationErrors.add(String.format("%s : %s", error.getField(), context.getMessage(error)));
-                }catch (NoSuchMessageException e) {
-                    validationErrors.add(String.format("%s : %s", error.getField(), error.getDefaultMessage()));
-                }
+                validationErrors.add(fieldError(error, locale));
             }
         }
         return ResponseEntity
                 .status(status)
-                .body(new ErrorResponse(LocalDateTime.now(), "Validation error(s)", validationErrors));
+                .body(new ErrorResponse(now(), "Validation error(s)", validationErrors));
+    }
+
+    private String fieldError(FieldError error, Locale locale) {
+        Object[] arguments = error.getArguments();
+        if (arguments != null && arguments.length > 0 && !error.contains(ConstraintViolation.class)) {
+            return error.getField() + " : " + resolveMessage(error, locale);
+        }
+        // elements of a batch share the messages of their field, whatever their index.
+        String field = error.getField().indexOf('[') < 0 ? error.getField() : error.getField().replaceAll("\\[[^]]*]", "[]");
+        MessageKey key = new MessageKey(error.getObjectName(), field, error.getCode(), error.getDefaultMessage(), locale);
+        String message = fieldMessages.getIfPresent(key);
+        if (message == null) {
+            message = resolveMessage(error, locale);
+            fieldMessages.put(key, message);
+        }
+        return error.getField() + " : " + message;
+    }
+
+    private String resolveMessage(FieldError error, Locale locale) {
+        // load messages from external resources(i.e. messages.properties), and fallback default if unavailable.
+        try {
+            return messageSource.getMessage(error, locale);
+        } catch (NoSuchMessageException e) {
+            return String.valueOf(error.getDefaultMessage());
+        }
+    }
+
+    /**
+     * @return the current time, shared by errors rendered within the same millisecond.
+     */
+    private LocalDateTime now() {
+        long millis = System.currentTimeMillis();
+        Timestamp last = timestamp;
+        if (last.millis != millis) {
+            last = new Timestamp(millis, LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone));
+            timestamp = last;
+        }
+        return last.dateTime;
     }
 
     /**
@@ -85,4 +210,19 @@ public class ApiDemoExceptionAdvice extends ResponseEntityExceptionHandler {
         private final String message;
         private final List<String> errors;
     }
+
+    @Value
+    private static class MessageKey {
+        String objectName;
+        String field;
+        String code;
+        String defaultMessage;
+        Locale locale;
+    }
+
+    @Value
+    private static class Timestamp {
+        long millis;
+        LocalDateTime dateTime;
+    }
 }
@@ -0,0 +1,20 @@
+package jp.co.axa.apidemo.controllers.advice;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * An exception rejecting a request whose {@code Idempotency-Key} can't be honored, rendered by
+ * {@link ApiDemoExceptionAdvice}: 422 when the key has been used by a different request, and 409 when the request
+ * of the key is still in progress.
+ * <p>It has no stack trace, as it is raised by retries, which come in bulk during incidents.</p>
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    @Getter
+    private final HttpStatus status;
+
+    public IdempotencyConflictException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+}
@@ -0,0 +1,23 @@
+package jp.co.axa.apidemo.controllers.advice;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * An exception rejecting a request because the service is overloaded, rendered by {@link ApiDemoExceptionAdvice}
+ * with a {@code Retry-After} header.
+ * <p>It has no stack trace, as rejections are expected to happen in bulk and must stay cheap.</p>
+ */
+public class OverloadedException extends RuntimeException {
+    @Getter
+    private final HttpStatus status;
+
+    @Getter
+    private final long retryAfterSeconds;
+
+    public OverloadedException(HttpStatus status, String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,21 @@
+package jp.co.axa.apidemo.controllers.advice;
+
+import org.springframework.validation.BindException;
+import org.springframework.validation.BindingResult;
+
+/**
+ * A {@link BindException} rejecting a request as invalid, rendered by {@link ApiDemoExceptionAdvice}.
+ * <p>It has no stack trace, as invalid requests are expected in bulk, and walking the stack of the servlet
+ * container down to the controller costs more than the rest of the rejection.</p>
+ */
+public class StacklessBindException extends BindException {
+
+    public StacklessBindException(BindingResult bindingResult) {
+        super(bindingResult);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
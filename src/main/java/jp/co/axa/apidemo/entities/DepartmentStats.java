@@ -0,0 +1,71 @@
+package jp.co.axa.apidemo.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Salary statistics of a department, maintained incrementally on every write of {@link Employee}.
+ * <p>Salaries are optional, so total/min/max/average cover only employees with a salary.</p>
+ */
+@ToString
+@EqualsAndHashCode
+@Entity
+@Table(name="DEPARTMENT_STATS")
+public class DepartmentStats {
+
+    @Getter
+    @Setter
+    @Id
+    @Column(name="DEPARTMENT")
+    private String department;
+
+    @Getter
+    @Setter
+    @Column(name="HEADCOUNT")
+    private long headcount;
+
+    @Getter
+    @Setter
+    @JsonIgnore
+    @Column(name="SALARIED_HEADCOUNT")
+    private long salariedHeadcount;
+
+    @Getter
+    @Setter
+    @Column(name="TOTAL_SALARY")
+    private long totalSalary;
+
+    @Getter
+    @Setter
+    @Column(name="MIN_SALARY")
+    private Integer minSalary;
+
+    @Getter
+    @Setter
+    @Column(name="MAX_SALARY")
+    private Integer maxSalary;
+
+    public DepartmentStats() {
+    }
+
+    public DepartmentStats(String department, Long headcount, Long salariedHeadcount, Long totalSalary, Integer minSalary, Integer maxSalary) {
+        this.department = department;
+        this.headcount = headcount;
+        this.salariedHeadcount = salariedHeadcount;
+        this.totalSalary = totalSalary == null ? 0 : totalSalary;
+        this.minSalary = minSalary;
+        this.maxSalary = maxSalary;
+    }
+
+    public Double getAverageSalary() {
+        return salariedHeadcount == 0 ? null : (double) totalSalary / salariedHeadcount;
+    }
+}
@@ -1,5 +1,6 @@
 package jp.co.axa.apidemo.entities;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -8,17 +9,27 @@ import lombok.ToString;
 import javax.persistence.*;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
+import java.time.Instant;
 
 @ToString
 @EqualsAndHashCode
 @Entity
-@Table(name="EMPLOYEE")
+@Table(name="EMPLOYEE", indexes={
+        // searches of a department, read in id order from after the cursor, up to the limit.
+        @Index(name="IDX_EMPLOYEE_DEPARTMENT_ID", columnList="DEPARTMENT,ID"),
+        // min/max salary of a department.
+        @Index(name="IDX_EMPLOYEE_DEPARTMENT_SALARY", columnList="DEPARTMENT,EMPLOYEE_SALARY"),
+        @Index(name="IDX_EMPLOYEE_SALARY", columnList="EMPLOYEE_SALARY"),
+        @Index(name="IDX_EMPLOYEE_NAME", columnList="EMPLOYEE_NAME"),
+})
 public class Employee {
 
     @Getter
     @Setter
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    // a pooled sequence instead of IDENTITY, so Hibernate knows ids before inserting and can batch the INSERTs.
+    @GeneratedValue(strategy= GenerationType.SEQUENCE, generator="employee_seq")
+    @SequenceGenerator(name="employee_seq", sequenceName="EMPLOYEE_SEQ", allocationSize=50)
     private Long id;
 
     @Getter
@@ -39,6 +50,22 @@ public class Employee {
     @NotEmpty
     private String department;
 
+    /**
+     * Incremented on every update, to detect concurrent modifications and to tag representations.
+     */
+    @Getter
+    @Setter
+    @Version
+    @Column(name="VERSION")
+    @JsonProperty(access=JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    @Getter
+    @Setter
+    @Column(name="LAST_MODIFIED")
+    @JsonProperty(access=JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
+
     public Employee() {
     }
 
@@ -48,4 +75,9 @@ public class Employee {
         this.department = department;
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
 }
@@ -0,0 +1,96 @@
+package jp.co.axa.apidemo.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A write of an {@link Employee}, logged in the same transaction as the write itself (transactional outbox),
+ * so that consumers can follow employees by reading changes after the last {@code seq} they have seen.
+ * <p>The state of the employee after the write is included, except for deletions.</p>
+ * <p>Changes are also read by time and node to invalidate what other nodes hold in memory,
+ * see {@link jp.co.axa.apidemo.services.ChangeLogInvalidationTransport}.</p>
+ */
+@Entity
+@Table(name="EMPLOYEE_CHANGE", indexes={
+        @Index(name="IDX_EMPLOYEE_CHANGE_CHANGED_AT", columnList="CHANGED_AT"),
+})
+public class EmployeeChange {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    @Getter
+    @Setter
+    @Id
+    // allocated from EmployeeChangeHead rather than a sequence, so that seqs are committed in order.
+    private Long seq;
+
+    @Getter
+    @Setter
+    @Enumerated(EnumType.STRING)
+    @Column(name="CHANGE_TYPE")
+    private Type type;
+
+    @Getter
+    @Setter
+    @Column(name="EMPLOYEE_ID")
+    private Long employeeId;
+
+    @Getter
+    @Setter
+    @Column(name="EMPLOYEE_NAME")
+    private String name;
+
+    @Getter
+    @Setter
+    @Column(name="EMPLOYEE_SALARY")
+    private Integer salary;
+
+    @Getter
+    @Setter
+    @Column(name="DEPARTMENT")
+    private String department;
+
+    @Getter
+    @Setter
+    @Column(name="VERSION")
+    private Long version;
+
+    @Getter
+    @Setter
+    @Column(name="CHANGED_AT")
+    private Instant changedAt;
+
+    /**
+     * The node which has written the employee.
+     */
+    @Getter
+    @Setter
+    @JsonIgnore
+    @Column(name="NODE")
+    private String node;
+
+    public EmployeeChange() {
+    }
+
+    public EmployeeChange(Type type, Employee employee) {
+        this.type = type;
+        this.employeeId = employee.getId();
+        if (type != Type.DELETED) {
+            this.name = employee.getName();
+            this.salary = employee.getSalary();
+            this.department = employee.getDepartment();
+            this.version = employee.getVersion();
+        }
+        this.changedAt = Instant.now();
+    }
+}
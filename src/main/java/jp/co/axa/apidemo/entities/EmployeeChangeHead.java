@@ -0,0 +1,49 @@
+package jp.co.axa.apidemo.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The last seq of {@link EmployeeChange}, a single row which every transaction logging changes updates, and so locks
+ * until it commits. Seqs are therefore committed in their order across all nodes: once a seq is visible,
+ * every lower one is committed or rolled back for good.
+ * <p>It also records up to which seq changes have been pruned, so that a reader behind it learns that it has missed
+ * changes rather than skipping them.</p>
+ */
+@Entity
+@Table(name="EMPLOYEE_CHANGE_HEAD")
+public class EmployeeChangeHead {
+    public static final long ID = 1;
+
+    @Getter
+    @Setter
+    @Id
+    @Column(name="ID")
+    private Long id;
+
+    @Getter
+    @Setter
+    @Column(name="LAST_SEQ")
+    private long lastSeq;
+
+    /**
+     * The last seq of the changes pruned, raised before they are deleted.
+     */
+    @Getter
+    @Setter
+    @Column(name="PRUNED_SEQ", columnDefinition="bigint default 0 not null")
+    private long prunedSeq;
+
+    public EmployeeChangeHead() {
+    }
+
+    public EmployeeChangeHead(long lastSeq) {
+        this.id = ID;
+        this.lastSeq = lastSeq;
+    }
+}
@@ -0,0 +1,44 @@
+package jp.co.axa.apidemo.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Progress of a named import of employees, advanced in the same transaction as each batch of imported employees,
+ * so that it always counts exactly the records committed.
+ */
+@Entity
+@Table(name="IMPORT_CHECKPOINT")
+public class ImportCheckpoint {
+
+    @Getter
+    @Setter
+    @Id
+    @Column(name="NAME")
+    private String name;
+
+    @Getter
+    @Setter
+    @Column(name="RECORDS")
+    private long records;
+
+    @Getter
+    @Setter
+    @Column(name="UPDATED_AT")
+    private Instant updatedAt;
+
+    public ImportCheckpoint() {
+    }
+
+    public ImportCheckpoint(String name, long records) {
+        this.name = name;
+        this.records = records;
+        this.updatedAt = Instant.now();
+    }
+}
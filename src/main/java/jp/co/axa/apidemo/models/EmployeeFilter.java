@@ -0,0 +1,14 @@
+package jp.co.axa.apidemo.models;
+
+import lombok.Data;
+
+/**
+ * Conditions to search employees by, each of which is ignored if not specified.
+ */
+@Data
+public class EmployeeFilter {
+    private String department;
+    private Integer minSalary;
+    private Integer maxSalary;
+    private String namePrefix;
+}
@@ -0,0 +1,20 @@
+package jp.co.axa.apidemo.models;
+
+import lombok.Data;
+
+import java.util.Collection;
+
+/**
+ * A notice that employees have been written on another node, so that what this node holds of them is stale.
+ */
+@Data
+public class EmployeeInvalidation {
+    /**
+     * Ids of the employees written.
+     */
+    private final Collection<Long> employeeIds;
+    /**
+     * The greatest seq of the changes logged for the writes, which are committed.
+     */
+    private final long lastSeq;
+}
@@ -0,0 +1,15 @@
+package jp.co.axa.apidemo.models;
+
+import lombok.Data;
+
+/**
+ * A read-only view of {@link jp.co.axa.apidemo.entities.Employee}, selected column by column
+ * instead of hydrating a managed entity.
+ */
+@Data
+public class EmployeeSummary {
+    private final Long id;
+    private final String name;
+    private final Integer salary;
+    private final String department;
+}
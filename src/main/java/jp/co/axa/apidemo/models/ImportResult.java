@@ -0,0 +1,22 @@
+package jp.co.axa.apidemo.models;
+
+import lombok.Data;
+
+/**
+ * A summary of an import of employees.
+ */
+@Data
+public class ImportResult {
+    /**
+     * The name of the checkpoint the import resumed from and advanced, or null if none.
+     */
+    private final String checkpoint;
+    /**
+     * Records skipped as already imported by the checkpoint.
+     */
+    private final long skipped;
+    /**
+     * Records imported by this import.
+     */
+    private final long imported;
+}
@@ -0,0 +1,53 @@
+package jp.co.axa.apidemo.models;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+/**
+ * File formats employees are imported from and exported to, one employee per line.
+ */
+public enum TransferFormat {
+    /**
+     * RFC 4180 CSV with a header line of column names.
+     */
+    CSV("csv", MediaType.valueOf("text/csv")),
+    /**
+     * Newline delimited JSON, one object per line.
+     */
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+
+    @Getter
+    private final String extension;
+
+    @Getter
+    private final MediaType mediaType;
+
+    TransferFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * @return the format of the extension, i.e. {@code csv}, or null if unknown.
+     */
+    public static TransferFormat ofExtension(String extension) {
+        for (TransferFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the format of the media type, ignoring its parameters such as charset, or null if unknown.
+     */
+    public static TransferFormat ofMediaType(MediaType mediaType) {
+        for (TransferFormat format : values()) {
+            if (format.mediaType.equalsTypeAndSubtype(mediaType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package jp.co.axa.apidemo.repositories;
+
+import jp.co.axa.apidemo.entities.DepartmentStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DepartmentStatsRepository extends JpaRepository<DepartmentStats,String> {
+
+    List<DepartmentStats> findByHeadcountGreaterThanOrderByDepartmentAsc(long headcount);
+
+    /**
+     * Find the statistics of a department, locking its row until the end of the current transaction,
+     * so that no write of the department is in progress meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from DepartmentStats s where s.department = :department")
+    Optional<DepartmentStats> findLockedByDepartment(@Param("department") String department);
+
+    /**
+     * Add deltas to the statistics of a department, and refresh min/max salary from EMPLOYEE.
+     * <p>Must be executed after the changes of EMPLOYEE are flushed, in the same transaction.</p>
+     * @return the number of updated rows, 0 if the department has no statistics yet.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update DepartmentStats s set s.headcount = s.headcount + :headcount," +
+            " s.salariedHeadcount = s.salariedHeadcount + :salariedHeadcount," +
+            " s.totalSalary = s.totalSalary + :totalSalary," +
+            " s.minSalary = (select min(e.salary) from Employee e where e.department = s.department)," +
+            " s.maxSalary = (select max(e.salary) from Employee e where e.department = s.department)" +
+            " where s.department = :department")
+    int addDeltas(@Param("department") String department,
+                  @Param("headcount") long headcount,
+                  @Param("salariedHeadcount") long salariedHeadcount,
+                  @Param("totalSalary") long totalSalary);
+}
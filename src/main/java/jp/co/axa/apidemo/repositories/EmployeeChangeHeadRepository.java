@@ -0,0 +1,43 @@
+package jp.co.axa.apidemo.repositories;
+
+import jp.co.axa.apidemo.entities.EmployeeChangeHead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface EmployeeChangeHeadRepository extends JpaRepository<EmployeeChangeHead,Long> {
+
+    /**
+     * Allocate {@code count} seqs, locking the head until the end of the current transaction.
+     * @return the number of updated rows, 0 if there is no head yet.
+     */
+    @Transactional
+    @Modifying
+    @Query("update EmployeeChangeHead h set h.lastSeq = h.lastSeq + :count where h.id = " + EmployeeChangeHead.ID)
+    int allocate(@Param("count") long count);
+
+    /**
+     * @return the last seq allocated, including those of the current transaction.
+     */
+    @Query("select h.lastSeq from EmployeeChangeHead h where h.id = " + EmployeeChangeHead.ID)
+    long findLastSeq();
+
+    /**
+     * Raise the seq up to which changes are pruned, unless it is already as high.
+     * @return the number of updated rows.
+     */
+    @Transactional
+    @Modifying
+    @Query("update EmployeeChangeHead h set h.prunedSeq = :seq where h.id = " + EmployeeChangeHead.ID + " and h.prunedSeq < :seq")
+    int raisePrunedSeq(@Param("seq") long seq);
+
+    /**
+     * @return the last seq of the pruned changes, 0 if none has been.
+     */
+    @Query("select h.prunedSeq from EmployeeChangeHead h where h.id = " + EmployeeChangeHead.ID)
+    long findPrunedSeq();
+}
@@ -0,0 +1,48 @@
+package jp.co.axa.apidemo.repositories;
+
+import jp.co.axa.apidemo.entities.EmployeeChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmployeeChangeRepository extends JpaRepository<EmployeeChange,Long> {
+
+    /**
+     * A range scan of the primary key, so reading changes costs the number of changes read.
+     */
+    List<EmployeeChange> findBySeqGreaterThanOrderBySeqAsc(long since, Pageable pageable);
+
+    /**
+     * A range scan of the index on CHANGED_AT, for changes logged by other nodes than {@code node} since then.
+     */
+    List<EmployeeChange> findByChangedAtGreaterThanEqualAndNodeNot(Instant since, String node);
+
+    @Query("select coalesce(max(c.seq), 0) from EmployeeChange c")
+    long findMaxSeq();
+
+    @Query("select coalesce(min(c.seq), 0) from EmployeeChange c")
+    long findMinSeq();
+
+    /**
+     * A range scan of the index on CHANGED_AT, for the last change logged before {@code before}.
+     */
+    @Query("select coalesce(max(c.seq), 0) from EmployeeChange c where c.changedAt < :before")
+    long findMaxSeqChangedBefore(@Param("before") Instant before);
+
+    /**
+     * Delete changes in a range of seqs, a range scan of the primary key.
+     * @return the number of deleted changes.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from EmployeeChange c where c.seq > :after and c.seq <= :until")
+    int deleteBySeqRange(@Param("after") long after, @Param("until") long until);
+}
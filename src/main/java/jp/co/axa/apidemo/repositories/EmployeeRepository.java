@@ -1,9 +1,90 @@
 package jp.co.axa.apidemo.repositories;
 
+import jp.co.axa.apidemo.entities.DepartmentStats;
 import jp.co.axa.apidemo.entities.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee,Long> {
+public interface EmployeeRepository extends JpaRepository<Employee,Long>, EmployeeRepositoryCustom {
+
+    /**
+     * The first page of employees in id order, the starting point of keyset pagination.
+     */
+    List<Employee> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * The page of employees following the given id (exclusive) in id order.
+     */
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * All employees in id order, fetched lazily from a JDBC cursor.
+     * <p>The returned stream must be consumed within a transaction and closed afterwards.</p>
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+    })
+    Stream<Employee> streamAllByOrderByIdAsc();
+
+    /**
+     * Update an employee with a single statement, without loading it into the persistence context, incrementing its version.
+     * @return the number of updated rows, 0 if the employee does not exist.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Employee e set e.name = :name, e.salary = :salary, e.department = :department," +
+            " e.version = e.version + 1, e.lastModified = :lastModified where e.id = :id")
+    int updateById(@Param("id") Long id,
+                   @Param("name") String name,
+                   @Param("salary") Integer salary,
+                   @Param("department") String department,
+                   @Param("lastModified") Instant lastModified);
+
+    /**
+     * Delete an employee with a single statement, without loading it into the persistence context.
+     * @return the number of deleted rows, 0 if the employee does not exist.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Employee e where e.id = :id")
+    int deleteEmployeeById(@Param("id") Long id);
+
+    /**
+     * Find an employee, locking its row until the end of the current transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Employee> findLockedById(Long id);
+
+    /**
+     * Department statistics recomputed from all employees, a full scan of EMPLOYEE.
+     */
+    @Query("select new jp.co.axa.apidemo.entities.DepartmentStats(e.department, count(e), count(e.salary), sum(e.salary), min(e.salary), max(e.salary))" +
+            " from Employee e group by e.department")
+    List<DepartmentStats> aggregateDepartmentStats();
+
+    /**
+     * Statistics of a department recomputed from its employees.
+     */
+    @Query("select new jp.co.axa.apidemo.entities.DepartmentStats(e.department, count(e), count(e.salary), sum(e.salary), min(e.salary), max(e.salary))" +
+            " from Employee e where e.department = :department group by e.department")
+    Optional<DepartmentStats> aggregateDepartmentStats(@Param("department") String department);
 }
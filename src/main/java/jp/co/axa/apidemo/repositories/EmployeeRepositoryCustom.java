@@ -0,0 +1,38 @@
+package jp.co.axa.apidemo.repositories;
+
+import jp.co.axa.apidemo.models.EmployeeFilter;
+import jp.co.axa.apidemo.models.EmployeeSummary;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Names of the fields of {@link jp.co.axa.apidemo.entities.Employee} selectable by {@link #findFields}.
+     */
+    Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "id", "name", "salary", "department", "version", "lastModified")));
+
+    /**
+     * Search employees matching all specified conditions of {@code filter}, in id order.
+     * <p>Only specified conditions make it into the WHERE clause, so that the matching index can be used.</p>
+     * @param after the last id of the previous page, or null for the first page.
+     * @param limit maximum number of employees to return.
+     */
+    List<EmployeeSummary> search(EmployeeFilter filter, Long after, int limit);
+
+    /**
+     * Find employees in id order, selecting only the specified columns.
+     * <p>Rows are read as scalars, so they are neither hydrated as entities nor managed by the persistence context.</p>
+     * @param fields names of the fields to select among {@link #FIELDS}, which become the keys of each row in order.
+     * @param after the last id of the previous page, or null for the first page.
+     * @param limit maximum number of employees to return.
+     */
+    List<Map<String, Object>> findFields(Collection<String> fields, Long after, int limit);
+}
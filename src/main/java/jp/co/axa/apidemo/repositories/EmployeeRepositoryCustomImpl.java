@@ -0,0 +1,94 @@
+package jp.co.axa.apidemo.repositories;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.models.EmployeeFilter;
+import jp.co.axa.apidemo.models.EmployeeSummary;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<EmployeeSummary> search(EmployeeFilter filter, Long after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EmployeeSummary> query = cb.createQuery(EmployeeSummary.class);
+        Root<Employee> employee = query.from(Employee.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getDepartment() != null) {
+            predicates.add(cb.equal(employee.get("department"), filter.getDepartment()));
+        }
+        if (filter.getMinSalary() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(employee.<Integer>get("salary"), filter.getMinSalary()));
+        }
+        if (filter.getMaxSalary() != null) {
+            predicates.add(cb.lessThanOrEqualTo(employee.<Integer>get("salary"), filter.getMaxSalary()));
+        }
+        if (filter.getNamePrefix() != null) {
+            predicates.add(cb.like(employee.<String>get("name"), escapeLike(filter.getNamePrefix()) + "%", LIKE_ESCAPE));
+        }
+        if (after != null) {
+            predicates.add(cb.greaterThan(employee.<Long>get("id"), after));
+        }
+
+        query.select(cb.construct(EmployeeSummary.class,
+                        employee.get("id"), employee.get("name"), employee.get("salary"), employee.get("department")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(employee.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFields(Collection<String> fields, Long after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Employee> employee = query.from(Employee.class);
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(employee.get(field).alias(field));
+        }
+        query.multiselect(selections).orderBy(cb.asc(employee.get("id")));
+        if (after != null) {
+            query.where(cb.greaterThan(employee.<Long>get("id"), after));
+        }
+
+        List<Tuple> tuples = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+            for (String field : fields) {
+                row.put(field, tuple.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package jp.co.axa.apidemo.repositories;
+
+import jp.co.axa.apidemo.entities.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint,String> {
+}
@@ -0,0 +1,74 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.entities.EmployeeChange;
+import jp.co.axa.apidemo.models.EmployeeInvalidation;
+import jp.co.axa.apidemo.repositories.EmployeeChangeRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An {@link InvalidationTransport} over EMPLOYEE_CHANGE, which every node logs its writes into in the same
+ * transaction, so that nothing needs to be published besides and nothing is lost while a node is down.
+ * <p>Changes logged by other nodes are polled every {@code apidemo.invalidation.poll-interval} milliseconds.
+ * As transactions may commit in another order than they logged their changes, each poll goes back by
+ * {@code lookback}, which must exceed the longest write transaction plus the clock skew between nodes,
+ * and skips changes already delivered.</p>
+ */
+public class ChangeLogInvalidationTransport implements InvalidationTransport {
+    private final EmployeeChangeRepository employeeChangeRepository;
+    private final String nodeId;
+    private final Duration lookback;
+    private final List<Consumer<EmployeeInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Seqs delivered within the lookback, by the time they were logged. Accessed by the polling thread only.
+     */
+    private final Map<Long, Instant> delivered = new HashMap<>();
+    private Instant polledAt = Instant.now();
+
+    public ChangeLogInvalidationTransport(EmployeeChangeRepository employeeChangeRepository, String nodeId, Duration lookback) {
+        this.employeeChangeRepository = employeeChangeRepository;
+        this.nodeId = nodeId;
+        this.lookback = lookback;
+    }
+
+    @Override
+    public void publish(EmployeeInvalidation invalidation) {
+        // the changes have been logged along with the writes.
+    }
+
+    @Override
+    public void subscribe(Consumer<EmployeeInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Scheduled(fixedDelayString = "${apidemo.invalidation.poll-interval:1000}")
+    public void poll() {
+        Instant now = Instant.now();
+        Instant since = polledAt.minus(lookback);
+        List<EmployeeChange> changes = employeeChangeRepository.findByChangedAtGreaterThanEqualAndNodeNot(since, nodeId);
+        delivered.values().removeIf(changedAt -> changedAt.isBefore(since));
+        Set<Long> employeeIds = new HashSet<>();
+        long lastSeq = -1;
+        for (EmployeeChange change : changes) {
+            if (delivered.putIfAbsent(change.getSeq(), change.getChangedAt()) == null) {
+                employeeIds.add(change.getEmployeeId());
+                lastSeq = Math.max(lastSeq, change.getSeq());
+            }
+        }
+        polledAt = now;
+        if (!employeeIds.isEmpty()) {
+            EmployeeInvalidation invalidation = new EmployeeInvalidation(employeeIds, lastSeq);
+            subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package jp.co.axa.apidemo.services;
+
+import lombok.Getter;
+
+/**
+ * An exception telling a reader of the change log that changes after its cursor have been pruned,
+ * so it must resync from employees and resume from {@link #getPrunedSeq()}.
+ * <p>It has no stack trace, as every stale consumer polling the log raises it.</p>
+ */
+public class ChangesPrunedException extends RuntimeException {
+    @Getter
+    private final long prunedSeq;
+
+    public ChangesPrunedException(long since, long prunedSeq) {
+        super(String.format("Changes after seq %d have been pruned up to seq %d.", since, prunedSeq), null, false, false);
+        this.prunedSeq = prunedSeq;
+    }
+}
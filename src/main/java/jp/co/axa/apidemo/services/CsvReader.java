@@ -0,0 +1,63 @@
+package jp.co.axa.apidemo.services;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reader of RFC 4180 CSV, one record at a time, so that memory does not grow with the input.
+ * <p>Quoted fields may contain commas, line breaks and quotes escaped by doubling them.</p>
+ */
+class CsvReader {
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+
+    /**
+     * @param reader which should be buffered, as it is read character by character.
+     */
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return fields of the next record, or null at the end of input.
+     * @throws EOFException if the input ends in a quoted field.
+     */
+    List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new EOFException("The input ends in a quoted field.");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
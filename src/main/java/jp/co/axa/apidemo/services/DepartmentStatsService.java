@@ -0,0 +1,42 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.entities.DepartmentStats;
+import jp.co.axa.apidemo.entities.Employee;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DepartmentStatsService {
+
+    /**
+     * Retrieve statistics of every department which has employees, ordered by department.
+     */
+    public List<DepartmentStats> retrieveDepartmentStats();
+
+    /**
+     * Retrieve statistics of a department.
+     * @throws java.util.NoSuchElementException if the department has no employees.
+     */
+    public DepartmentStats getDepartmentStats(String department);
+
+    /**
+     * Reflect written employees into the statistics of their departments.
+     * <p>Must be called in the transaction writing the employees, after the write.</p>
+     * @param removed employees as they were before being updated or deleted.
+     * @param added employees as they are after being created or updated.
+     */
+    public void applyChanges(Collection<Employee> removed, Collection<Employee> added);
+
+    /**
+     * Check the maintained statistics against the ones recomputed from all employees, without writing them.
+     * @return departments which statistics differ.
+     */
+    public List<String> verifyDepartmentStats();
+
+    /**
+     * Check the maintained statistics as {@link #verifyDepartmentStats()} does, and rewrite the ones which differ
+     * from their employees, one department at a time while writes of the department wait.
+     * @return departments which statistics differed.
+     */
+    public List<String> repairDepartmentStats();
+}
@@ -0,0 +1,242 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.entities.DepartmentStats;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.repositories.DepartmentStatsRepository;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Statistics of departments kept in DEPARTMENT_STATS, so reads cost O(#departments) instead of a scan of EMPLOYEE.
+ * <p>Writes of employees add per-department deltas in their own transaction, while min/max salary are refreshed
+ * from EMPLOYEE for the touched departments only. As the row of a department is locked until commit,
+ * writes within one department are serialized. The row is inserted by the first write of the department,
+ * and concurrent first writes which lose the race on its key add their deltas to it instead.</p>
+ * <p>Statistics are verified against EMPLOYEE periodically on every node, and repaired only where
+ * {@code apidemo.department-stats.repair} is set, which should be a single node.</p>
+ */
+@Service
+public class DepartmentStatsServiceImpl implements DepartmentStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentStatsServiceImpl.class);
+    private static final String INSERT_STATS = "insert into DEPARTMENT_STATS" +
+            " (DEPARTMENT, HEADCOUNT, SALARIED_HEADCOUNT, TOTAL_SALARY, MIN_SALARY, MAX_SALARY)" +
+            " select DEPARTMENT, count(*), count(EMPLOYEE_SALARY), coalesce(sum(EMPLOYEE_SALARY), 0), min(EMPLOYEE_SALARY), max(EMPLOYEE_SALARY)" +
+            " from EMPLOYEE where DEPARTMENT = ? group by DEPARTMENT";
+
+    @Autowired
+    private DepartmentStatsRepository departmentStatsRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${apidemo.department-stats.repair:false}")
+    private boolean repair;
+
+    public List<DepartmentStats> retrieveDepartmentStats() {
+        return departmentStatsRepository.findByHeadcountGreaterThanOrderByDepartmentAsc(0);
+    }
+
+    public DepartmentStats getDepartmentStats(String department) {
+        return departmentStatsRepository.findById(department)
+                .filter(stats -> stats.getHeadcount() > 0)
+                .orElseThrow(() -> new NoSuchElementException(String.format("The department{name=%s} does not exist.", department)));
+    }
+
+    @Transactional
+    public void applyChanges(Collection<Employee> removed, Collection<Employee> added) {
+        Map<String, long[]> deltas = new HashMap<>();
+        for (Employee employee : removed) {
+            addDelta(deltas, employee, -1);
+        }
+        for (Employee employee : added) {
+            addDelta(deltas, employee, 1);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // min/max are refreshed from EMPLOYEE, so it must reflect the changes first.
+        entityManager.flush();
+        // always in the same order, so that concurrent writes lock departments without deadlocks.
+        for (String department : new TreeSet<>(deltas.keySet())) {
+            long[] delta = deltas.get(department);
+            if (departmentStatsRepository.addDeltas(department, delta[0], delta[1], delta[2]) == 0 && !insertStats(department)
+                    // inserted by a concurrent write of the department, which has committed it since.
+                    && departmentStatsRepository.addDeltas(department, delta[0], delta[1], delta[2]) == 0) {
+                throw new IllegalStateException(String.format("The statistics of department{name=%s} can't be written.", department));
+            }
+        }
+    }
+
+    /**
+     * Insert the statistics of a department computed as a whole from EMPLOYEE, including the changes flushed
+     * in the current transaction, unless they have been inserted concurrently.
+     * <p>Inserted by plain JDBC on the connection of the transaction within a savepoint, so that a duplicate key
+     * neither marks the JPA transaction for rollback nor aborts it on databases which abort transactions on errors.</p>
+     * @return whether inserted, or false if the department already had statistics.
+     */
+    private boolean insertStats(String department) {
+        Boolean inserted = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_STATS)) {
+                statement.setString(1, department);
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("insertStats", INSERT_STATS, e);
+                if (translated instanceof DataIntegrityViolationException) {
+                    return false;
+                }
+                if (translated == null) {
+                    throw e;
+                }
+                throw translated;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        });
+        return Boolean.TRUE.equals(inserted);
+    }
+
+    private static void addDelta(Map<String, long[]> deltas, Employee employee, int sign) {
+        long[] delta = deltas.computeIfAbsent(employee.getDepartment(), department -> new long[3]);
+        delta[0] += sign;
+        if (employee.getSalary() != null) {
+            delta[1] += sign;
+            delta[2] += sign * employee.getSalary().longValue();
+        }
+    }
+
+    /**
+     * Verify the statistics once the application starts, and every {@code apidemo.department-stats.verify-interval}
+     * milliseconds afterwards, repairing them if {@code apidemo.department-stats.repair} is set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${apidemo.department-stats.verify-interval:600000}",
+            fixedDelayString = "${apidemo.department-stats.verify-interval:600000}")
+    public void verifyPeriodically() {
+        if (repair) {
+            repairDepartmentStats();
+        } else {
+            verifyDepartmentStats();
+        }
+    }
+
+    public List<String> verifyDepartmentStats() {
+        List<String> inconsistent = inconsistentDepartments(false);
+        if (!inconsistent.isEmpty()) {
+            logger.warn("Department statistics are inconsistent for {}.", inconsistent);
+        }
+        return inconsistent;
+    }
+
+    public List<String> repairDepartmentStats() {
+        List<String> repaired = inconsistentDepartments(true);
+        if (!repaired.isEmpty()) {
+            logger.warn("Department statistics were inconsistent for {}, repaired them.", repaired);
+        }
+        return repaired;
+    }
+
+    private List<String> inconsistentDepartments(boolean repair) {
+        List<String> inconsistent = new ArrayList<>();
+        for (String department : suspectedDepartments()) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> verifyDepartment(department, repair)))) {
+                inconsistent.add(department);
+            }
+        }
+        return inconsistent;
+    }
+
+    /**
+     * Departments of which statistics differ from the ones recomputed from all employees, a scan without locks.
+     * <p>Writes in progress may commit between reading EMPLOYEE and DEPARTMENT_STATS, so departments found are
+     * verified again one by one.</p>
+     */
+    private List<String> suspectedDepartments() {
+        return transactionTemplate.execute(status -> {
+            Map<String, DepartmentStats> expected = employeeRepository.aggregateDepartmentStats().stream()
+                    .collect(Collectors.toMap(DepartmentStats::getDepartment, Function.identity()));
+            Map<String, DepartmentStats> actual = retrieveDepartmentStats().stream()
+                    .collect(Collectors.toMap(DepartmentStats::getDepartment, Function.identity()));
+            TreeSet<String> departments = new TreeSet<>(expected.keySet());
+            departments.addAll(actual.keySet());
+            List<String> suspected = new ArrayList<>();
+            for (String department : departments) {
+                if (!Objects.equals(expected.get(department), actual.get(department))) {
+                    suspected.add(department);
+                }
+            }
+            return suspected;
+        });
+    }
+
+    /**
+     * Verify the statistics of a department while its row is locked, so that writes of the department
+     * have either committed both their employees and their deltas or neither, and repair them if asked to.
+     * <p>Repairing overwrites the row under the same lock, so no delta committed meanwhile is lost.</p>
+     * @return whether they differed.
+     */
+    private boolean verifyDepartment(String department, boolean repair) {
+        Optional<DepartmentStats> stats = departmentStatsRepository.findLockedByDepartment(department);
+        if (!stats.isPresent()) {
+            Optional<DepartmentStats> expected = employeeRepository.aggregateDepartmentStats(department);
+            // nothing to lock yet, but the first write of a department commits its row along with its employees,
+            // so employees committed before the aggregation have their row read here.
+            stats = departmentStatsRepository.findLockedByDepartment(department);
+            if (!stats.isPresent()) {
+                if (expected.isPresent() && repair) {
+                    insertStats(department);
+                }
+                return expected.isPresent();
+            }
+        }
+        DepartmentStats expected = employeeRepository.aggregateDepartmentStats(department)
+                .orElseGet(() -> new DepartmentStats(department, 0L, 0L, 0L, null, null));
+        if (expected.equals(stats.get())) {
+            return false;
+        }
+        if (repair) {
+            departmentStatsRepository.save(expected);
+        }
+        return true;
+    }
+}
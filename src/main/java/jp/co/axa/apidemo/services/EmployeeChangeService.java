@@ -0,0 +1,45 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.entities.EmployeeChange;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface EmployeeChangeService {
+
+    /**
+     * Log changes of employees.
+     * <p>Must be called in the transaction writing the employees, so that changes are committed with them.</p>
+     */
+    public void recordChanges(Collection<EmployeeChange> changes);
+
+    /**
+     * Retrieve changes logged after {@code since}, ordered by seq.
+     * <p>A change is retrieved only once every change before it is committed, so a consumer resuming from the last
+     * seq it has retrieved never misses a change committed later.</p>
+     * @throws ChangesPrunedException if changes after {@code since} have been pruned.
+     */
+    public List<EmployeeChange> retrieveChanges(long since, int limit);
+
+    /**
+     * Retrieve changes as {@link #retrieveChanges(long, int)} does, waiting until any is committed if none yet.
+     * <p>The returned future does not complete by itself while no change is committed,
+     * so callers waiting for a limited time must cancel it once given up.</p>
+     */
+    public CompletableFuture<List<EmployeeChange>> awaitChanges(long since, int limit);
+
+    /**
+     * Learn of changes committed on another node up to {@code lastSeq}, waking up the waiters here.
+     */
+    public void observeRemoteChanges(long lastSeq);
+
+    /**
+     * Delete changes up to the last one logged before {@code before}, in batches of
+     * {@code apidemo.change-log.prune-batch-size}. Readers whose cursor is behind them fail afterwards,
+     * and may resume from the returned seq once resynced.
+     * @return the last seq of the changes pruned so far, by this call or earlier ones, 0 if none has ever been.
+     */
+    public long pruneChanges(Instant before);
+}
@@ -0,0 +1,207 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.entities.EmployeeChange;
+import jp.co.axa.apidemo.entities.EmployeeChangeHead;
+import jp.co.axa.apidemo.models.EmployeeInvalidation;
+import jp.co.axa.apidemo.repositories.EmployeeChangeHeadRepository;
+import jp.co.axa.apidemo.repositories.EmployeeChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Changes of employees logged in EMPLOYEE_CHANGE, ordered by seq.
+ * <p>Seqs are allocated from {@link EmployeeChangeHead}, which stays locked until the transaction logging the changes
+ * completes, so transactions commit in the order of their seqs, on every node sharing the database. A reader resuming
+ * after the last seq it has seen never skips a change committed later, without any bookkeeping of uncommitted seqs.
+ * Logging changes is the last write of a transaction, so writes are serialized only for the time of their commit.
+ * That is still a ceiling on write throughput across all nodes, of about one transaction per commit latency,
+ * accepted for a gap-free feed; a higher one needs the feed partitioned, with a head and a cursor per partition.</p>
+ * <p>Waiters of {@link #awaitChanges(long, int)} are woken up after every commit, here or on other nodes as learned of
+ * by {@link InvalidationTransport}, and poll on the task executor instead of the committing thread.</p>
+ * <p>Changes older than {@code apidemo.change-log.retention} are pruned every {@code apidemo.change-log.prune-interval}
+ * milliseconds on every node, which is harmless as pruning the same changes twice deletes nothing more.</p>
+ */
+@Service
+public class EmployeeChangeServiceImpl implements EmployeeChangeService {
+
+    @Autowired
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    @Autowired
+    private EmployeeChangeHeadRepository employeeChangeHeadRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor executor;
+
+    @Autowired
+    private InvalidationTransport invalidationTransport;
+
+    @Autowired
+    @Qualifier("nodeId")
+    private String nodeId;
+
+    @Value("${apidemo.change-log.retention:7d}")
+    private Duration retention;
+
+    @Value("${apidemo.change-log.prune-batch-size:1000}")
+    private int pruneBatchSize;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create the head unless another node has already, going on from the changes logged before it existed if any.
+     */
+    @PostConstruct
+    public void createHead() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!employeeChangeHeadRepository.existsById(EmployeeChangeHead.ID)) {
+                    employeeChangeHeadRepository.saveAndFlush(new EmployeeChangeHead(employeeChangeRepository.findMaxSeq()));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // created by another node in the meantime.
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(Collection<EmployeeChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (employeeChangeHeadRepository.allocate(changes.size()) == 0) {
+            throw new IllegalStateException("EMPLOYEE_CHANGE_HEAD has no row.");
+        }
+        long lastSeq = employeeChangeHeadRepository.findLastSeq();
+        long seq = lastSeq - changes.size();
+        for (EmployeeChange change : changes) {
+            change.setSeq(++seq);
+            change.setNode(nodeId);
+            entityManager.persist(change);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeWaiters();
+                invalidationTransport.publish(new EmployeeInvalidation(
+                        changes.stream().map(EmployeeChange::getEmployeeId).collect(Collectors.toSet()), lastSeq));
+            }
+        });
+    }
+
+    public List<EmployeeChange> retrieveChanges(long since, int limit) {
+        List<EmployeeChange> changes = employeeChangeRepository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, limit));
+        // the head is read only when changes may be missing, as a page going on from since can't have been pruned.
+        if (changes.isEmpty() || changes.get(0).getSeq() != since + 1) {
+            long prunedSeq = employeeChangeHeadRepository.findPrunedSeq();
+            if (since < prunedSeq) {
+                throw new ChangesPrunedException(since, prunedSeq);
+            }
+        }
+        return changes;
+    }
+
+    public void observeRemoteChanges(long lastSeq) {
+        wakeWaiters();
+    }
+
+    /**
+     * Prune changes older than {@code apidemo.change-log.retention}, every {@code apidemo.change-log.prune-interval}
+     * milliseconds.
+     */
+    @Scheduled(initialDelayString = "${apidemo.change-log.prune-interval:3600000}",
+            fixedDelayString = "${apidemo.change-log.prune-interval:3600000}")
+    public void prunePeriodically() {
+        pruneChanges(Instant.now().minus(retention));
+    }
+
+    public long pruneChanges(Instant before) {
+        long until = employeeChangeRepository.findMaxSeqChangedBefore(before);
+        if (until == 0) {
+            // nothing left to prune, maybe as it has been already.
+            return employeeChangeHeadRepository.findPrunedSeq();
+        }
+        // raised before deleting, so that a reader seeing a gap is told changes are pruned instead of skipping them.
+        employeeChangeHeadRepository.raisePrunedSeq(until);
+        // from the oldest change left rather than the last pruned seq, in case an earlier pruning stopped halfway.
+        long after = employeeChangeRepository.findMinSeq() - 1;
+        // a transaction per batch, so that neither locks nor undo logs grow with the backlog of changes.
+        while (after < until) {
+            long batchUntil = Math.min(after + pruneBatchSize, until);
+            employeeChangeRepository.deleteBySeqRange(after, batchUntil);
+            after = batchUntil;
+        }
+        return until;
+    }
+
+    public CompletableFuture<List<EmployeeChange>> awaitChanges(long since, int limit) {
+        Waiter waiter = new Waiter(since, limit);
+        waiters.add(waiter);
+        waiter.future.whenComplete((changes, e) -> waiters.remove(waiter));
+        // polled after being added, so that a commit in between wakes it up instead of being missed.
+        poll(waiter);
+        return waiter.future;
+    }
+
+    private void wakeWaiters() {
+        if (!waiters.isEmpty()) {
+            executor.execute(() -> waiters.forEach(this::poll));
+        }
+    }
+
+    private void poll(Waiter waiter) {
+        if (waiter.future.isDone()) {
+            return;
+        }
+        try {
+            List<EmployeeChange> changes = retrieveChanges(waiter.since, waiter.limit);
+            if (!changes.isEmpty()) {
+                waiter.future.complete(changes);
+            }
+        } catch (RuntimeException e) {
+            waiter.future.completeExceptionally(e);
+        }
+    }
+
+    private static class Waiter {
+        private final long since;
+        private final int limit;
+        private final CompletableFuture<List<EmployeeChange>> future = new CompletableFuture<>();
+
+        private Waiter(long since, int limit) {
+            this.since = since;
+            this.limit = limit;
+        }
+    }
+}
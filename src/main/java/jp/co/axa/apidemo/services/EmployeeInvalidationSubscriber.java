@@ -0,0 +1,38 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.models.EmployeeInvalidation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Applies invalidations of employees written on other nodes to the state of this node:
+ * cached employees, the change tag and the change feed.
+ * <p>Never initialized lazily, as nothing else depends on it.</p>
+ */
+@Component
+@Lazy(false)
+public class EmployeeInvalidationSubscriber {
+
+    @Autowired
+    private InvalidationTransport invalidationTransport;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeChangeService employeeChangeService;
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationTransport.subscribe(this::apply);
+    }
+
+    private void apply(EmployeeInvalidation invalidation) {
+        // the feed first, so that whoever sees the employees invalidated can see their changes as well.
+        employeeChangeService.observeRemoteChanges(invalidation.getLastSeq());
+        employeeService.invalidateEmployees(invalidation.getEmployeeIds());
+    }
+}
@@ -1,20 +1,93 @@
 package jp.co.axa.apidemo.services;
 
 import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.models.EmployeeFilter;
+import jp.co.axa.apidemo.models.EmployeeSummary;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface EmployeeService {
 
-    public List<Employee> retrieveEmployees();
+    /**
+     * Retrieve at most {@code limit} employees whose id is greater than {@code after}, in id order.
+     * @param after the last id of the previous page, or null for the first page.
+     * @param limit maximum number of employees to return.
+     */
+    public List<Employee> retrieveEmployees(Long after, int limit);
+
+    /**
+     * Retrieve a page of employees as {@link #retrieveEmployees(Long, int)} does, reading only the specified fields.
+     * @param fields names of fields among {@link jp.co.axa.apidemo.repositories.EmployeeRepositoryCustom#FIELDS}.
+     * @return rows of the fields keyed by name, in the specified order.
+     */
+    public List<Map<String, Object>> retrieveEmployeeFields(Collection<String> fields, Long after, int limit);
+
+    /**
+     * Search at most {@code limit} employees matching {@code filter} whose id is greater than {@code after}, in id order.
+     * @param after the last id of the previous page, or null for the first page.
+     * @param limit maximum number of employees to return.
+     */
+    public List<EmployeeSummary> searchEmployees(EmployeeFilter filter, Long after, int limit);
+
+    /**
+     * Feed every employee to {@code consumer} in id order, one at a time, without holding the whole table in memory.
+     */
+    public void streamEmployees(Consumer<Employee> consumer);
 
     public Employee getEmployee(Long employeeId);
 
     public Employee saveEmployee(Employee employee);
 
-    public void deleteEmployee(Long employeeId);
+    /**
+     * Delete an employee, after reading it with its row locked: not a single statement, as the statistics of its
+     * department and the change log need its values, which no portable DELETE returns.
+     * @param expectedVersion the version the employee must still be of, or null to delete any version.
+     * @throws java.util.NoSuchElementException if the employee does not exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the employee is of another version.
+     */
+    public void deleteEmployee(Long employeeId, Long expectedVersion);
 
-    public void updateEmployee(Employee employee);
+    /**
+     * Update an employee, after reading it with its row locked: not a single statement, as the statistics of its
+     * departments and the change log need its previous values, which no portable UPDATE returns.
+     * The update itself is a single statement, without merging an entity.
+     * @param expectedVersion the version the employee must still be of, or null to update any version.
+     * @throws java.util.NoSuchElementException if the employee does not exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the employee is of another version.
+     */
+    public void updateEmployee(Employee employee, Long expectedVersion);
 
     public boolean existsById(Long employeeId);
-}
\ No newline at end of file
+
+    /**
+     * A tag which changes whenever employees are written, cheap enough to compute per request.
+     */
+    public String getChangeTag();
+
+    /**
+     * Drop what this node holds in memory of employees written on another node.
+     */
+    public void invalidateEmployees(Collection<Long> employeeIds);
+
+    /**
+     * Create employees in chunked transactions with batched inserts.
+     * <p>Chunks are committed one by one, so a failure leaves the preceding chunks committed.</p>
+     * @return the created employees, with their ids assigned.
+     */
+    public List<Employee> saveEmployees(List<Employee> employees);
+
+    /**
+     * Update employees in chunked transactions with batched updates.
+     * <p>A chunk referring to an employee which does not exist is rolled back as a whole,
+     * and the preceding chunks stay committed.</p>
+     */
+    public void updateEmployees(List<Employee> employees);
+
+    /**
+     * Delete employees in chunked transactions, ignoring ids which do not exist.
+     */
+    public void deleteEmployees(List<Long> employeeIds);
+}
@@ -1,13 +1,36 @@
 package jp.co.axa.apidemo.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import jp.co.axa.apidemo.config.ReplicaRoutingDataSource;
 import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.entities.EmployeeChange;
+import jp.co.axa.apidemo.models.EmployeeFilter;
+import jp.co.axa.apidemo.models.EmployeeSummary;
 import jp.co.axa.apidemo.repositories.EmployeeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class EmployeeServiceImpl implements EmployeeService{
@@ -15,32 +38,257 @@ public class EmployeeServiceImpl implements EmployeeService{
     @Autowired
     private EmployeeRepository employeeRepository;
 
-    public List<Employee> retrieveEmployees() {
-        List<Employee> employees = employeeRepository.findAll();
-        return employees;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Employees read by id. Loads go through {@link Cache#get}, which is atomic per key,
+     * and writes invalidate after commit, so a load racing with a write can't leave a stale entry behind.
+     * Loads read the primary even with a replica, which could still have the entry as of before the write.
+     * <p>Entries are never handed out nor taken from callers as they are, but copied, so that no caller can change
+     * what others read from the cache.</p>
+     */
+    @Autowired
+    private Cache<Long, Employee> employeeCache;
+
+    @Autowired
+    private DepartmentStatsService departmentStatsService;
+
+    @Autowired
+    private EmployeeChangeService employeeChangeService;
+
+    @Value("${apidemo.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    /**
+     * Incremented after every committed write of employees on this node, or invalidation of writes on others,
+     * so that readers observing the same count observed the same employees.
+     * Tagged by start time, so that counts are not confused across restarts.
+     */
+    private final AtomicLong changeCount = new AtomicLong();
+    private final long startedAt = System.currentTimeMillis();
+
+    @Transactional(readOnly = true)
+    public List<Employee> retrieveEmployees(Long after, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (after == null) {
+            return employeeRepository.findAllByOrderByIdAsc(page);
+        }
+        return employeeRepository.findByIdGreaterThanOrderByIdAsc(after, page);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> retrieveEmployeeFields(Collection<String> fields, Long after, int limit) {
+        return employeeRepository.findFields(fields, after, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<EmployeeSummary> searchEmployees(EmployeeFilter filter, Long after, int limit) {
+        return employeeRepository.search(filter, after, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamEmployees(Consumer<Employee> consumer) {
+        try (Stream<Employee> employees = employeeRepository.streamAllByOrderByIdAsc()) {
+            employees.forEach(employee -> {
+                consumer.accept(employee);
+                // drop it from the persistence context once written, so memory stays flat over the whole table.
+                entityManager.detach(employee);
+            });
+        }
     }
 
     public Employee getEmployee(Long employeeId) {
-        Optional<Employee> optEmp = employeeRepository.findById(employeeId);
-        return optEmp.orElseThrow(
-                ()-> new NoSuchElementException(String.format("The employee{id=%d} does not exist.", employeeId) )
-        );
+        Employee employee = employeeCache.get(employeeId,
+                id -> ReplicaRoutingDataSource.onPrimary(() -> employeeRepository.findById(id).orElse(null)));
+        if (employee == null) {
+            throw new NoSuchElementException(String.format("The employee{id=%d} does not exist.", employeeId));
+        }
+        return copyOf(employee);
     }
 
     public Employee saveEmployee(Employee employee){
-        return employeeRepository.save(employee);
+        Employee saved = transactionTemplate.execute(status -> {
+            Employee result = employeeRepository.save(employee);
+            departmentStatsService.applyChanges(Collections.emptyList(), Collections.singletonList(result));
+            employeeChangeService.recordChanges(Collections.singletonList(new EmployeeChange(EmployeeChange.Type.CREATED, result)));
+            return result;
+        });
+        // a snapshot, as the saved employee is the caller's own instance, which it may go on modifying.
+        Employee snapshot = copyOf(saved);
+        afterCommit(() -> employeeCache.put(snapshot.getId(), snapshot));
+        return saved;
     }
 
-    public void deleteEmployee(Long employeeId){
-        employeeRepository.deleteById(employeeId);
+    public void deleteEmployee(Long employeeId, Long expectedVersion){
+        transactionTemplate.executeWithoutResult(status -> {
+            // the current values are needed to maintain department statistics.
+            Employee current = findLocked(employeeId, expectedVersion);
+            employeeRepository.deleteEmployeeById(employeeId);
+            departmentStatsService.applyChanges(Collections.singletonList(current), Collections.emptyList());
+            employeeChangeService.recordChanges(Collections.singletonList(new EmployeeChange(EmployeeChange.Type.DELETED, current)));
+        });
+        afterCommit(() -> employeeCache.invalidate(employeeId));
     }
 
-    public void updateEmployee(Employee employee) {
-        employeeRepository.save(employee);
+    public void updateEmployee(Employee employee, Long expectedVersion) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Employee current = findLocked(employee.getId(), expectedVersion);
+            employeeRepository.updateById(employee.getId(), employee.getName(), employee.getSalary(), employee.getDepartment(), Instant.now());
+            departmentStatsService.applyChanges(Collections.singletonList(current), Collections.singletonList(employee));
+            EmployeeChange change = new EmployeeChange(EmployeeChange.Type.UPDATED, employee);
+            // the bulk update has incremented the version by one.
+            change.setVersion(current.getVersion() == null ? null : current.getVersion() + 1);
+            employeeChangeService.recordChanges(Collections.singletonList(change));
+        });
+        afterCommit(() -> employeeCache.invalidate(employee.getId()));
+    }
+
+    /**
+     * Find an employee locking its row, and check it is still of the expected version if any.
+     * As the row is locked, it can't be modified by others between the check and the write.
+     * <p>A round trip of its own before each update and delete, kept as department statistics need the previous
+     * department and salary, and the change log the previous version, which no portable UPDATE or DELETE returns.</p>
+     */
+    private Employee findLocked(Long employeeId, Long expectedVersion) {
+        Employee current = employeeRepository.findLockedById(employeeId).orElseThrow(
+                ()-> new NoSuchElementException(String.format("The employee{id=%d} does not exist.", employeeId))
+        );
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new OptimisticLockingFailureException(String.format("The employee{id=%d} has been modified.", employeeId));
+        }
+        return current;
     }
 
     @Override
+    public String getChangeTag() {
+        return startedAt + "-" + changeCount.get();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public boolean existsById(Long employeeId) {
-        return employeeRepository.existsById(employeeId);
+        return employeeCache.getIfPresent(employeeId) != null || employeeRepository.existsById(employeeId);
+    }
+
+    @Override
+    public void invalidateEmployees(Collection<Long> employeeIds) {
+        employeeCache.invalidateAll(employeeIds);
+        changeCount.incrementAndGet();
+    }
+
+    public List<Employee> saveEmployees(List<Employee> employees) {
+        List<Employee> saved = new ArrayList<>(employees.size());
+        for (List<Employee> chunk : chunks(employees)) {
+            saved.addAll(transactionTemplate.execute(status -> {
+                List<Employee> result = employeeRepository.saveAll(chunk);
+                departmentStatsService.applyChanges(Collections.emptyList(), result);
+                employeeChangeService.recordChanges(changesOf(EmployeeChange.Type.CREATED, result));
+                flushAndClear();
+                return result;
+            }));
+            // nothing to invalidate, as new ids can't be cached yet.
+            afterCommit(() -> {});
+        }
+        return saved;
+    }
+
+    public void updateEmployees(List<Employee> employees) {
+        for (List<Employee> chunk : chunks(employees)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                // load the whole chunk with one query, then let dirty checking issue the batched UPDATEs.
+                List<Long> ids = chunk.stream().map(Employee::getId).collect(Collectors.toList());
+                Map<Long, Employee> managed = employeeRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Employee::getId, Function.identity()));
+                List<Long> missing = new ArrayList<>();
+                List<Employee> before = new ArrayList<>(chunk.size());
+                List<Employee> after = new ArrayList<>(chunk.size());
+                for (Employee employee : chunk) {
+                    Employee target = managed.get(employee.getId());
+                    if (target == null) {
+                        missing.add(employee.getId());
+                        continue;
+                    }
+                    before.add(copyOf(target));
+                    target.setName(employee.getName());
+                    target.setSalary(employee.getSalary());
+                    target.setDepartment(employee.getDepartment());
+                    after.add(target);
+                }
+                if (!missing.isEmpty()) {
+                    throw new NoSuchElementException(String.format("The employee(s){id=%s} do not exist.", missing));
+                }
+                departmentStatsService.applyChanges(before, chunk);
+                // the statistics have flushed the updates, so versions are incremented by now.
+                employeeChangeService.recordChanges(changesOf(EmployeeChange.Type.UPDATED, after));
+                flushAndClear();
+            });
+            afterCommit(() -> employeeCache.invalidateAll(chunk.stream().map(Employee::getId).collect(Collectors.toList())));
+        }
+    }
+
+    public void deleteEmployees(List<Long> employeeIds) {
+        for (List<Long> chunk : chunks(employeeIds)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Employee> before = employeeRepository.findAllById(chunk);
+                employeeRepository.deleteAllByIdInBatch(chunk);
+                departmentStatsService.applyChanges(before, Collections.emptyList());
+                employeeChangeService.recordChanges(changesOf(EmployeeChange.Type.DELETED, before));
+                flushAndClear();
+            });
+            afterCommit(() -> employeeCache.invalidateAll(chunk));
+        }
+    }
+
+    /**
+     * Run an action on the cache once written employees are committed, and count the write.
+     * <p>Writes join the transaction of the caller if any, in which case they are committed only with it.</p>
+     */
+    private void afterCommit(Runnable cacheAction) {
+        Runnable action = () -> {
+            cacheAction.run();
+            changeCount.incrementAndGet();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static List<EmployeeChange> changesOf(EmployeeChange.Type type, List<Employee> employees) {
+        return employees.stream().map(employee -> new EmployeeChange(type, employee)).collect(Collectors.toList());
+    }
+
+    private static Employee copyOf(Employee employee) {
+        Employee copy = new Employee();
+        copy.setId(employee.getId());
+        copy.setName(employee.getName());
+        copy.setSalary(employee.getSalary());
+        copy.setDepartment(employee.getDepartment());
+        copy.setVersion(employee.getVersion());
+        copy.setLastModified(employee.getLastModified());
+        return copy;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchChunkSize) {
+            chunks.add(items.subList(from, Math.min(items.size(), from + batchChunkSize)));
+        }
+        return chunks;
     }
 }
\ No newline at end of file
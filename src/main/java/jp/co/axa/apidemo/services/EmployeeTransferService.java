@@ -0,0 +1,29 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.models.ImportResult;
+import jp.co.axa.apidemo.models.TransferFormat;
+import org.springframework.validation.BindException;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+public interface EmployeeTransferService {
+
+    /**
+     * Import employees from a file, creating a new employee per record. Ids in the file are ignored.
+     * <p>Records are read one at a time and written in batched transactions, so memory does not grow with the file.
+     * Each transaction also advances the checkpoint, so an import which failed halfway can be resumed by the same
+     * checkpoint, skipping the records already imported.</p>
+     * @param checkpoint the name of the checkpoint to resume from and advance, or null to import every record.
+     * @throws BindException if a record is malformed or violates constraints of employees,
+     * in which case the records of the batches before it stay imported.
+     */
+    public ImportResult importEmployees(ReadableByteChannel source, TransferFormat format, String checkpoint) throws BindException, IOException;
+
+    /**
+     * Export all employees to a file in id order, through a forward-only cursor, so memory does not grow with the table.
+     * @return the number of exported employees.
+     */
+    public long exportEmployees(WritableByteChannel target, TransferFormat format) throws IOException;
+}
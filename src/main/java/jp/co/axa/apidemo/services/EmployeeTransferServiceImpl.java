@@ -0,0 +1,293 @@
+package jp.co.axa.apidemo.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.entities.ImportCheckpoint;
+import jp.co.axa.apidemo.models.ImportResult;
+import jp.co.axa.apidemo.models.TransferFormat;
+import jp.co.axa.apidemo.repositories.ImportCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BindException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import javax.sql.DataSource;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports and exports of employees as files.
+ * <p>Imports go through {@link EmployeeService#saveEmployees(List)}, so that department statistics, the change log
+ * and caches are maintained as for any other write, while exports read EMPLOYEE by plain JDBC, skipping entities.</p>
+ */
+@Service
+public class EmployeeTransferServiceImpl implements EmployeeTransferService {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeTransferServiceImpl.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] CSV_COLUMNS = {"id", "name", "salary", "department"};
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ImportCheckpointRepository importCheckpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${apidemo.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${apidemo.transfer.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${apidemo.transfer.progress-interval:100000}")
+    private long progressInterval;
+
+    public ImportResult importEmployees(ReadableByteChannel source, TransferFormat format, String checkpoint) throws BindException, IOException {
+        long skipped = checkpoint == null ? 0 : importCheckpointRepository.findById(checkpoint)
+                .map(ImportCheckpoint::getRecords)
+                .orElse(0L);
+        Reader reader = new BufferedReader(Channels.newReader(source, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE);
+        RecordReader records = format == TransferFormat.CSV ? csvRecords(reader) : ndjsonRecords(reader);
+
+        long record = 0;
+        long imported = 0;
+        List<Employee> chunk = new ArrayList<>(batchChunkSize);
+        for (Employee employee; (employee = records.read(record + 1)) != null; ) {
+            record++;
+            if (record <= skipped) {
+                continue;
+            }
+            validate(employee, record);
+            chunk.add(employee);
+            if (chunk.size() == batchChunkSize) {
+                write(chunk, checkpoint, record);
+                imported += chunk.size();
+                chunk.clear();
+                if (imported % progressInterval < batchChunkSize) {
+                    logger.info("Imported {} employees{}.", imported, checkpoint == null ? "" : " by checkpoint " + checkpoint);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, checkpoint, record);
+            imported += chunk.size();
+        }
+        return new ImportResult(checkpoint, Math.min(skipped, record), imported);
+    }
+
+    private void write(List<Employee> chunk, String checkpoint, long records) {
+        // the checkpoint is committed with the employees or not at all, so resuming neither skips nor repeats any.
+        transactionTemplate.executeWithoutResult(status -> {
+            employeeService.saveEmployees(chunk);
+            if (checkpoint != null) {
+                importCheckpointRepository.save(new ImportCheckpoint(checkpoint, records));
+            }
+        });
+    }
+
+    private void validate(Employee employee, long record) throws BindException {
+        Set<ConstraintViolation<Employee>> violations = validator.validate(employee);
+        if (violations.isEmpty()) {
+            return;
+        }
+        BindingResult bindingResult = new MapBindingResult(new HashMap<>(), "records");
+        for (ConstraintViolation<Employee> violation : violations) {
+            String code = violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName();
+            bindingResult.rejectValue(String.format("records[%d].%s", record, violation.getPropertyPath()), code, violation.getMessage());
+        }
+        throw new BindException(bindingResult);
+    }
+
+    private static BindException malformed(long record, String field, String code, String message) {
+        BindingResult bindingResult = new MapBindingResult(new HashMap<>(), "records");
+        bindingResult.rejectValue(String.format("records[%d]%s", record, field == null ? "" : "." + field), code, message);
+        return new BindException(bindingResult);
+    }
+
+    /**
+     * Reads employees one by one from a file.
+     */
+    private interface RecordReader {
+        /**
+         * @param record the number of the record to read, counted from 1, to report errors by.
+         * @return the next employee, or null at the end of the file.
+         */
+        Employee read(long record) throws BindException, IOException;
+    }
+
+    private RecordReader csvRecords(Reader reader) throws BindException, IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return record -> null;
+        }
+        int name = header.indexOf("name");
+        int salary = header.indexOf("salary");
+        int department = header.indexOf("department");
+        if (name < 0 || salary < 0 || department < 0) {
+            throw malformed(0, null, "MissingColumns", "must have columns name, salary and department.");
+        }
+        return record -> {
+            List<String> fields;
+            try {
+                fields = csv.readRecord();
+                // blank lines are not records.
+                while (fields != null && fields.size() == 1 && fields.get(0).isEmpty()) {
+                    fields = csv.readRecord();
+                }
+            } catch (EOFException e) {
+                throw malformed(record, null, "Malformed", e.getMessage());
+            }
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != header.size()) {
+                throw malformed(record, null, "Malformed", String.format("must have %d fields.", header.size()));
+            }
+            Employee employee = new Employee();
+            employee.setName(fields.get(name));
+            employee.setDepartment(fields.get(department));
+            String salaryField = fields.get(salary);
+            try {
+                employee.setSalary(salaryField.isEmpty() ? null : Integer.valueOf(salaryField));
+            } catch (NumberFormatException e) {
+                throw malformed(record, "salary", "typeMismatch", "must be a number.");
+            }
+            return employee;
+        };
+    }
+
+    private RecordReader ndjsonRecords(Reader reader) throws IOException {
+        MappingIterator<Employee> employees = objectMapper.readerFor(Employee.class).readValues(reader);
+        return record -> {
+            try {
+                if (!employees.hasNextValue()) {
+                    return null;
+                }
+                Employee employee = employees.nextValue();
+                employee.setId(null);
+                return employee;
+            } catch (JsonProcessingException e) {
+                throw malformed(record, null, "Malformed", e.getOriginalMessage());
+            }
+        };
+    }
+
+    @Transactional(readOnly = true)
+    public long exportEmployees(WritableByteChannel target, TransferFormat format) throws IOException {
+        Writer writer = new BufferedWriter(Channels.newWriter(target, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        JsonGenerator generator = format == TransferFormat.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null;
+        if (generator != null) {
+            generator.setRootValueSeparator(null);
+        } else {
+            writer.write(String.join(",", CSV_COLUMNS));
+            writer.write('\n');
+        }
+        // plain JDBC, as JdbcTemplate reads forward-only, and in the transaction, so drivers can fetch by fetch size.
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        long[] exported = {0};
+        try {
+            jdbcTemplate.query("select id, employee_name, employee_salary, department from employee order by id", rs -> {
+                long id = rs.getLong(1);
+                String name = rs.getString(2);
+                int salary = rs.getInt(3);
+                boolean hasSalary = !rs.wasNull();
+                String department = rs.getString(4);
+                try {
+                    if (generator != null) {
+                        generator.writeStartObject();
+                        generator.writeNumberField("id", id);
+                        generator.writeStringField("name", name);
+                        if (hasSalary) {
+                            generator.writeNumberField("salary", salary);
+                        } else {
+                            generator.writeNullField("salary");
+                        }
+                        generator.writeStringField("department", department);
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                    } else {
+                        writer.write(Long.toString(id));
+                        writer.write(',');
+                        writeCsvField(writer, name);
+                        writer.write(',');
+                        if (hasSalary) {
+                            writer.write(Integer.toString(salary));
+                        }
+                        writer.write(',');
+                        writeCsvField(writer, department);
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+        return exported[0];
+    }
+
+    /**
+     * Write a CSV field, quoted only if it needs to be.
+     */
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,37 @@
+package jp.co.axa.apidemo.services;
+
+import jp.co.axa.apidemo.models.EmployeeInvalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * A channel between nodes sharing a database, carrying {@link EmployeeInvalidation}s of committed writes,
+ * so that every node can drop what it holds in memory of the employees written by another.
+ * <p>Selected by {@code apidemo.invalidation.transport}: {@code none} for a single node,
+ * or {@code change-log} for {@link ChangeLogInvalidationTransport}.</p>
+ */
+public interface InvalidationTransport {
+
+    /**
+     * A transport of a single node, which has nobody to tell.
+     */
+    InvalidationTransport NONE = new InvalidationTransport() {
+        @Override
+        public void publish(EmployeeInvalidation invalidation) {
+        }
+
+        @Override
+        public void subscribe(Consumer<EmployeeInvalidation> subscriber) {
+        }
+    };
+
+    /**
+     * Tell other nodes of writes committed on this node.
+     */
+    public void publish(EmployeeInvalidation invalidation);
+
+    /**
+     * Receive invalidations of writes committed on other nodes, but never of this node's own.
+     */
+    public void subscribe(Consumer<EmployeeInvalidation> subscriber);
+}
@@ -1,3 +1,11 @@
-insert into employee values (0, 'it', 'Foo', 1000);
-insert into employee values (1, 'it', 'Bar', 2000);
-insert into employee values (2, 'hr', 'Baz', 1000);
\ No newline at end of file
+insert into employee (id, department, employee_name, employee_salary, version, last_modified) values (0, 'it', 'Foo', 1000, 0, current_timestamp);
+insert into employee (id, department, employee_name, employee_salary, version, last_modified) values (1, 'it', 'Bar', 2000, 0, current_timestamp);
+insert into employee (id, department, employee_name, employee_salary, version, last_modified) values (2, 'hr', 'Baz', 1000, 0, current_timestamp);
+alter sequence employee_seq restart with 3;
+insert into department_stats (department, headcount, salaried_headcount, total_salary, min_salary, max_salary)
+select department, count(*), count(employee_salary), coalesce(sum(employee_salary), 0), min(employee_salary), max(employee_salary)
+from employee group by department;
+insert into employee_change (seq, change_type, employee_id, employee_name, employee_salary, department, version, changed_at)
+select id + 1, 'CREATED', id, employee_name, employee_salary, department, version, last_modified from employee;
+-- seqs of the change log go on from the seeded ones, whether or not the head has been created before.
+merge into employee_change_head (id, last_seq) key (id) select 1, max(seq) from employee_change;
@@ -0,0 +1,120 @@
+package jp.co.axa.apidemo;
+
+import com.jayway.jsonpath.JsonPath;
+import jp.co.axa.apidemo.entities.DepartmentStats;
+import jp.co.axa.apidemo.services.DepartmentStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests of the {@code async} execution mode on a single thread without queue, on a database of their own.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:async", "apidemo.execution.mode=async",
+        "apidemo.execution.threads=1", "apidemo.execution.queue-capacity=0"})
+@AutoConfigureMockMvc
+public class AsyncExecutionTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DepartmentStatsService departmentStatsService;
+
+    @Test
+    public void testRequestsRunAsync() throws Exception {
+        MvcResult created = this.mockMvc.perform(post("/api/v1/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Async\",\"salary\":100,\"department\":\"it\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(created))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Async"))
+                .andReturn().getResponse().getContentAsString();
+        long id = ((Number) JsonPath.read(body, "$.id")).longValue();
+
+        MvcResult updated = this.mockMvc.perform(put("/api/v1/employees/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":" + id + ",\"name\":\"Async2\",\"salary\":100,\"department\":\"it\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(updated))
+                .andExpect(status().isOk())
+                ;
+
+        MvcResult read = this.mockMvc.perform(get("/api/v1/employees/" + id))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String eTag = this.mockMvc.perform(asyncDispatch(read))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Async2"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        MvcResult notModified = this.mockMvc.perform(get("/api/v1/employees/" + id).header("If-None-Match", eTag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(notModified))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                ;
+    }
+
+    @Test
+    public void testErrorsRenderedAsync() throws Exception {
+        MvcResult result = this.mockMvc.perform(get("/api/v1/employees/" + Long.MAX_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                ;
+    }
+
+    @Test
+    public void testRejectedWhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(departmentStatsService.retrieveDepartmentStats()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Collections.<DepartmentStats>emptyList();
+        });
+        MvcResult blocked = this.mockMvc.perform(get("/api/v1/departments/stats"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        try {
+            this.mockMvc.perform(get("/api/v1/employees/0"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.message").value("Too many concurrent requests"))
+                    ;
+        } finally {
+            release.countDown();
+        }
+        this.mockMvc.perform(asyncDispatch(blocked))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty())
+                ;
+    }
+}
@@ -0,0 +1,157 @@
+package jp.co.axa.apidemo;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.entities.EmployeeChange;
+import jp.co.axa.apidemo.services.EmployeeChangeService;
+import jp.co.axa.apidemo.services.EmployeeService;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of two nodes sharing an H2 server, with invalidations over the change log,
+ * where node a reads from a replica, which is the same database here.
+ */
+public class ClusterTest {
+    @TempDir
+    Path dataDir;
+
+    private Server server;
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    public void start() throws IOException, SQLException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Server.createTcpServer("-tcpPort", Integer.toString(port), "-ifNotExists",
+                "-baseDir", dataDir.toString()).start();
+        String url = "jdbc:h2:tcp://localhost:" + port + "/cluster";
+        nodeA = start("a", url, "--apidemo.datasource.replica.url=" + url);
+        nodeB = start("b", url);
+    }
+
+    @AfterEach
+    public void stop() {
+        nodeB.close();
+        nodeA.close();
+        server.stop();
+    }
+
+    @Test
+    public void testWritesInvalidateOtherNodes() throws InterruptedException {
+        EmployeeService employeesA = nodeA.getBean(EmployeeService.class);
+        EmployeeService employeesB = nodeB.getBean(EmployeeService.class);
+        EmployeeChangeService changesA = nodeA.getBean(EmployeeChangeService.class);
+
+        Employee employee = employeesA.saveEmployee(new Employee("Before", 100, "cluster"));
+        // cached on node a.
+        assertEquals("Before", employeesA.getEmployee(employee.getId()).getName());
+        long since = changesA.retrieveChanges(0, 1000).stream().mapToLong(EmployeeChange::getSeq).max().orElse(0);
+        String changeTag = employeesA.getChangeTag();
+
+        // built afresh, so that nothing node a holds is touched but through the database.
+        Employee update = new Employee("After", 100, "cluster");
+        update.setId(employee.getId());
+        employeesB.updateEmployee(update, null);
+
+        // node a learns of the write of node b only by the invalidation.
+        await(() -> !changeTag.equals(employeesA.getChangeTag()));
+        assertEquals("After", employeesA.getEmployee(employee.getId()).getName());
+        List<EmployeeChange> changes = changesA.retrieveChanges(since, 1000);
+        assertEquals(1, changes.size());
+        assertEquals("After", changes.get(0).getName());
+    }
+
+    @Test
+    public void testChangesCommittedInSeqOrder() throws Exception {
+        EmployeeService employeesA = nodeA.getBean(EmployeeService.class);
+        EmployeeService employeesB = nodeB.getBean(EmployeeService.class);
+        EmployeeChangeService changesB = nodeB.getBean(EmployeeChangeService.class);
+        long since = changesB.retrieveChanges(0, 1000).stream().mapToLong(EmployeeChange::getSeq).max().orElse(0);
+
+        CountDownLatch logged = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> writeA = CompletableFuture.runAsync(() -> nodeA.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            employeesA.saveEmployee(new Employee("A", 100, "cluster-a"));
+            logged.countDown();
+            try {
+                commit.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(logged.await(5, TimeUnit.SECONDS));
+        // node b writes while the change of node a is logged but not committed yet.
+        CompletableFuture<Employee> writeB = CompletableFuture.supplyAsync(() -> employeesB.saveEmployee(new Employee("B", 100, "cluster-b")));
+        Thread.sleep(200);
+        assertTrue(changesB.retrieveChanges(since, 1000).isEmpty());
+
+        commit.countDown();
+        writeA.get(5, TimeUnit.SECONDS);
+        writeB.get(5, TimeUnit.SECONDS);
+        // b had to wait for a to commit, so its seq is the higher one and a reader past it has seen a's as well.
+        List<EmployeeChange> changes = changesB.retrieveChanges(since, 1000);
+        assertEquals(Arrays.asList("A", "B"), changes.stream().map(EmployeeChange::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testReadsRoutedToReplica() {
+        HikariDataSource replica = nodeA.getBean("replicaDataSource", HikariDataSource.class);
+        EmployeeService employeesA = nodeA.getBean(EmployeeService.class);
+        Employee employee = employeesA.saveEmployee(new Employee("Replicated", 100, "cluster"));
+        // loads of the cache read the primary.
+        employeesA.getEmployee(employee.getId());
+        assertNull(replica.getHikariPoolMXBean());
+
+        assertTrue(employeesA.retrieveEmployees(null, 10).size() > 0);
+        assertNotNull(replica.getHikariPoolMXBean());
+    }
+
+    private ConfigurableApplicationContext start(String nodeId, String url, String... args) {
+        String[] arguments = new String[args.length + 6];
+        arguments[0] = "--spring.profiles.active=jdbc";
+        arguments[1] = "--spring.datasource.url=" + url;
+        arguments[2] = "--apidemo.node-id=" + nodeId;
+        arguments[3] = "--apidemo.invalidation.transport=change-log";
+        arguments[4] = "--apidemo.invalidation.poll-interval=100";
+        arguments[5] = "--logging.level.root=WARN";
+        System.arraycopy(args, 0, arguments, 6, args.length);
+        return new SpringApplicationBuilder(ApiDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
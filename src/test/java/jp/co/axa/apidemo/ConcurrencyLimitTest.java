@@ -0,0 +1,71 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.controllers.ConcurrencyLimitInterceptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"apidemo.concurrency.limit=0", "apidemo.concurrency.max-wait=0"})
+@AutoConfigureMockMvc
+public class ConcurrencyLimitTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testRejectedWhenSaturated() throws Exception {
+        this.mockMvc.perform(get("/api/v1/employees/0"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("Too many concurrent requests"))
+                ;
+    }
+
+    @Test
+    public void testActuatorNotLimited() throws Exception {
+        this.mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk())
+                ;
+    }
+
+    @Test
+    public void testLimitAdaptsToLatency() throws Exception {
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(10, 1, 10, 0, 50);
+        MockHttpServletRequest first = admit(interceptor);
+        MockHttpServletRequest second = admit(interceptor);
+        Thread.sleep(60);
+        complete(interceptor, first);
+        assertEquals(9, interceptor.getLimit());
+        // admitted before the cut, so not counted again.
+        complete(interceptor, second);
+        assertEquals(9, interceptor.getLimit());
+        for (int i = 0; i < 9; i++) {
+            complete(interceptor, admit(interceptor));
+        }
+        assertEquals(10, interceptor.getLimit());
+        for (int i = 0; i < 10; i++) {
+            complete(interceptor, admit(interceptor));
+        }
+        assertEquals(10, interceptor.getLimit());
+    }
+
+    private static MockHttpServletRequest admit(ConcurrencyLimitInterceptor interceptor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        return request;
+    }
+
+    private static void complete(ConcurrencyLimitInterceptor interceptor, MockHttpServletRequest request) {
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+    }
+}
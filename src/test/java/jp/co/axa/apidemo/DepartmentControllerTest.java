@@ -0,0 +1,146 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.entities.DepartmentStats;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.services.DepartmentStatsService;
+import jp.co.axa.apidemo.services.EmployeeService;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests of department statistics, on a database of their own, as other tests write employees of the seeded departments.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:departments")
+@AutoConfigureMockMvc
+public class DepartmentControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private DepartmentStatsService departmentStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testGetDepartmentStats() throws Exception {
+        this.mockMvc.perform(get("/api/v1/departments/stats?department=it"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].department").value("it"))
+                .andExpect(jsonPath("$.[0].headcount").value(2))
+                .andExpect(jsonPath("$.[0].totalSalary").value(3000))
+                .andExpect(jsonPath("$.[0].minSalary").value(1000))
+                .andExpect(jsonPath("$.[0].maxSalary").value(2000))
+                .andExpect(jsonPath("$.[0].averageSalary").value(1500.0))
+                ;
+    }
+
+    @Test
+    public void testGetDepartmentStatsNotExist() throws Exception {
+        this.mockMvc.perform(get("/api/v1/departments/stats?department=nowhere"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value(CoreMatchers.containsString("does not exist")))
+                ;
+    }
+
+    @Test
+    public void testDepartmentStatsMaintainedOnWrites() throws Exception {
+        Employee foo = employeeService.saveEmployee(new Employee("Foo", 100, "sales"));
+        Employee bar = employeeService.saveEmployee(new Employee("Bar", 300, "sales"));
+        this.mockMvc.perform(get("/api/v1/departments/stats?department=sales"))
+                .andExpect(jsonPath("$.[0].headcount").value(2))
+                .andExpect(jsonPath("$.[0].totalSalary").value(400))
+                .andExpect(jsonPath("$.[0].minSalary").value(100))
+                .andExpect(jsonPath("$.[0].maxSalary").value(300))
+                ;
+
+        Employee cheaperBar = new Employee("Bar", 50, "sales");
+        cheaperBar.setId(bar.getId());
+        employeeService.updateEmployee(cheaperBar, null);
+        this.mockMvc.perform(get("/api/v1/departments/stats?department=sales"))
+                .andExpect(jsonPath("$.[0].headcount").value(2))
+                .andExpect(jsonPath("$.[0].totalSalary").value(150))
+                .andExpect(jsonPath("$.[0].minSalary").value(50))
+                .andExpect(jsonPath("$.[0].maxSalary").value(100))
+                ;
+
+        Employee movedFoo = new Employee("Foo", 100, "marketing");
+        movedFoo.setId(foo.getId());
+        employeeService.updateEmployee(movedFoo, null);
+        employeeService.deleteEmployee(bar.getId(), null);
+        this.mockMvc.perform(get("/api/v1/departments/stats?department=sales"))
+                .andExpect(status().isNotFound())
+                ;
+        this.mockMvc.perform(get("/api/v1/departments/stats?department=marketing"))
+                .andExpect(jsonPath("$.[0].headcount").value(1))
+                .andExpect(jsonPath("$.[0].totalSalary").value(100))
+                ;
+
+        assertTrue(departmentStatsService.verifyDepartmentStats().isEmpty());
+        employeeService.deleteEmployee(foo.getId(), null);
+    }
+
+    @Test
+    public void testFirstEmployeesOfDepartmentWrittenConcurrently() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Employee> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Employee employee = employeeService.saveEmployee(new Employee("First", 100, "research"));
+            written.countDown();
+            try {
+                commit.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return employee;
+        }));
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        // inserts statistics of the department as well, while the first one has not committed them yet.
+        CompletableFuture<Employee> second = CompletableFuture.supplyAsync(() -> employeeService.saveEmployee(new Employee("Second", 300, "research")));
+        Thread.sleep(100);
+        commit.countDown();
+
+        Employee firstEmployee = first.get(5, TimeUnit.SECONDS);
+        Employee secondEmployee = second.get(5, TimeUnit.SECONDS);
+        DepartmentStats stats = departmentStatsService.getDepartmentStats("research");
+        assertEquals(2, stats.getHeadcount());
+        assertEquals(400, stats.getTotalSalary());
+        assertTrue(departmentStatsService.verifyDepartmentStats().isEmpty());
+        employeeService.deleteEmployee(firstEmployee.getId(), null);
+        employeeService.deleteEmployee(secondEmployee.getId(), null);
+    }
+
+    @Test
+    public void testRepairDepartmentStatsRebuildsInconsistentStats() {
+        Employee foo = employeeService.saveEmployee(new Employee("Foo", 100, "legal"));
+        // statistics drift by a removal which did not happen.
+        departmentStatsService.applyChanges(Collections.singletonList(foo), Collections.emptyList());
+
+        // only reported until repaired.
+        assertEquals(Collections.singletonList("legal"), departmentStatsService.verifyDepartmentStats());
+        assertEquals(Collections.singletonList("legal"), departmentStatsService.verifyDepartmentStats());
+        assertEquals(Collections.singletonList("legal"), departmentStatsService.repairDepartmentStats());
+        assertTrue(departmentStatsService.verifyDepartmentStats().isEmpty());
+        assertEquals(1, departmentStatsService.getDepartmentStats("legal").getHeadcount());
+        employeeService.deleteEmployee(foo.getId(), null);
+    }
+}
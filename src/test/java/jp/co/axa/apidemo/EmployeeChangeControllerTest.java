@@ -0,0 +1,80 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.repositories.EmployeeChangeRepository;
+import jp.co.axa.apidemo.services.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class EmployeeChangeControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    @Test
+    public void testGetEmployeeChanges() throws Exception {
+        long since = employeeChangeRepository.findMaxSeq();
+        Employee foo = employeeService.saveEmployee(new Employee("Foo", 100, "it"));
+        foo.setName("Bar");
+        employeeService.updateEmployee(foo, null);
+        employeeService.deleteEmployee(foo.getId(), null);
+        this.mockMvc.perform(get("/api/v1/employees/changes?since=" + since))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$.[0].type").value("CREATED"))
+                .andExpect(jsonPath("$.[0].employeeId").value(foo.getId()))
+                .andExpect(jsonPath("$.[0].name").value("Foo"))
+                .andExpect(jsonPath("$.[1].type").value("UPDATED"))
+                .andExpect(jsonPath("$.[1].name").value("Bar"))
+                .andExpect(jsonPath("$.[1].version").value(1))
+                .andExpect(jsonPath("$.[2].type").value("DELETED"))
+                .andExpect(jsonPath("$.[2].name").doesNotExist())
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/changes?limit=2&since=" + since))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-Cursor"))
+                ;
+    }
+
+    @Test
+    public void testGetEmployeeChangesSeeded() throws Exception {
+        this.mockMvc.perform(get("/api/v1/employees/changes?limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].type").value("CREATED"))
+                .andExpect(jsonPath("$.[0].name").value("Foo"))
+                .andExpect(jsonPath("$.[2].name").value("Baz"))
+                ;
+    }
+
+    @Test
+    public void testAwaitEmployeeChanges() throws Exception {
+        long since = employeeChangeRepository.findMaxSeq();
+        MvcResult result = this.mockMvc.perform(get("/api/v1/employees/changes?wait=10&since=" + since))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Employee foo = employeeService.saveEmployee(new Employee("Foo", 100, "it"));
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].type").value("CREATED"))
+                .andExpect(jsonPath("$.[0].employeeId").value(foo.getId()))
+                ;
+    }
+}
@@ -0,0 +1,69 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.repositories.EmployeeChangeRepository;
+import jp.co.axa.apidemo.services.EmployeeChangeService;
+import jp.co.axa.apidemo.services.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests of pruning the change log, on a database of their own, as other tests read the seeded changes.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:pruning", "apidemo.change-log.prune-batch-size=2"})
+@AutoConfigureMockMvc
+public class EmployeeChangePruningTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeChangeService employeeChangeService;
+
+    @Autowired
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    @Test
+    public void testPruneChanges() throws Exception {
+        Employee foo = employeeService.saveEmployee(new Employee("Foo", 100, "it"));
+        long fooSeq = employeeChangeRepository.findMaxSeq();
+        Thread.sleep(10);
+        Instant before = Instant.now();
+        Thread.sleep(10);
+        Employee bar = employeeService.saveEmployee(new Employee("Bar", 100, "it"));
+
+        // the seeded changes and foo's, over batches.
+        assertEquals(fooSeq, employeeChangeService.pruneChanges(before));
+        assertEquals(fooSeq + 1, employeeChangeRepository.findMinSeq());
+
+        this.mockMvc.perform(get("/api/v1/employees/changes?since=0"))
+                .andExpect(status().isGone())
+                .andExpect(header().string("X-Oldest-Cursor", String.valueOf(fooSeq)))
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/changes?since=" + fooSeq))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].employeeId").value(bar.getId()))
+                ;
+        // pruning nothing more is harmless.
+        assertEquals(fooSeq, employeeChangeService.pruneChanges(before));
+        this.mockMvc.perform(get("/api/v1/employees/changes?since=" + (fooSeq + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty())
+                ;
+        assertEquals(foo.getId(), employeeService.getEmployee(foo.getId()).getId());
+    }
+}
@@ -1,24 +1,52 @@
 package jp.co.axa.apidemo;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
 import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.models.EmployeeFilter;
+import jp.co.axa.apidemo.models.EmployeeSummary;
 import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import jp.co.axa.apidemo.services.EmployeeService;
 import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -30,29 +58,173 @@ public class EmployeeControllerTest {
     @MockBean
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private Cache<Long, Employee> employeeCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @BeforeEach
+    public void clearCache() {
+        employeeCache.invalidateAll();
+    }
+
     @Test
     public void testGetEmployees() throws Exception {
         Employee[] employees = {
                 new Employee("Foo", 1, "it"),
                 new Employee("Bar", 2, "it"),
         };
-        when(employeeRepository.findAll()).thenReturn(Arrays.asList(employees));
+        when(employeeRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(Arrays.asList(employees));
         this.mockMvc.perform(get("/api/v1/employees"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.[0].name").value(employees[0].getName()))
                 .andExpect(jsonPath("$.[1].name").value(employees[1].getName()))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                ;
+    }
+
+    @Test
+    public void testGetEmployeesBinaryEncodings() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        when(employeeRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(Collections.singletonList(foo));
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("application/cbor", new ObjectMapper(new CBORFactory()));
+        mappers.put("application/x-jackson-smile", new ObjectMapper(new SmileFactory()));
+        for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet()) {
+            byte[] body = this.mockMvc.perform(get("/api/v1/employees").accept(mapper.getKey()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(mapper.getKey()))
+                    .andReturn().getResponse().getContentAsByteArray();
+            JsonNode employees = mapper.getValue().readTree(body);
+            assertEquals(foo.getName(), employees.get(0).get("name").asText());
+            assertEquals(foo.getId(), employees.get(0).get("id").asLong());
+        }
+        this.mockMvc.perform(get("/api/v1/employees"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 ;
     }
 
     @Test
     public void testGetEmployeesEmpty() throws Exception {
-        when(employeeRepository.findAll()).thenReturn(Collections.emptyList());
+        when(employeeRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(Collections.emptyList());
         this.mockMvc.perform(get("/api/v1/employees"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty())
                 ;
     }
 
+    @Test
+    public void testGetEmployeesNextPage() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(11l);
+        Employee bar = new Employee("Bar", 2, "it");
+        bar.setId(12l);
+        when(employeeRepository.findByIdGreaterThanOrderByIdAsc(10l, PageRequest.of(0, 2))).thenReturn(Arrays.asList(foo, bar));
+        this.mockMvc.perform(get("/api/v1/employees?after=10&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id").value(foo.getId()))
+                .andExpect(jsonPath("$.[1].id").value(bar.getId()))
+                .andExpect(header().string("X-Next-Cursor", "12"))
+                .andExpect(header().string("Link", CoreMatchers.containsString("after=12")))
+                ;
+        verify(employeeRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetEmployeeFields() throws Exception {
+        Map<String, Object> foo = new LinkedHashMap<>();
+        foo.put("id", 1l);
+        foo.put("name", "Foo");
+        when(employeeRepository.findFields(any(), isNull(), anyInt())).thenReturn(Collections.singletonList(foo));
+        this.mockMvc.perform(get("/api/v1/employees?fields=name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id").value(1))
+                .andExpect(jsonPath("$.[0].name").value("Foo"))
+                .andExpect(jsonPath("$.[0].salary").doesNotExist())
+                ;
+        verify(employeeRepository).findFields(eq(new LinkedHashSet<>(Arrays.asList("id", "name"))), isNull(), anyInt());
+        verify(employeeRepository, never()).findAllByOrderByIdAsc(any(Pageable.class));
+    }
+
+    @Test
+    public void testGetEmployeeFieldsUnknown() throws Exception {
+        this.mockMvc.perform(get("/api/v1/employees?fields=name,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0]").value(CoreMatchers.containsString("unknown field(s) password")))
+                ;
+        verify(employeeRepository, never()).findFields(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testSearchEmployees() throws Exception {
+        EmployeeSummary foo = new EmployeeSummary(1l, "Foo", 1000, "it");
+        when(employeeRepository.search(any(EmployeeFilter.class), isNull(), anyInt())).thenReturn(Collections.singletonList(foo));
+        this.mockMvc.perform(get("/api/v1/employees/search?department=it&minSalary=500&maxSalary=1500&namePrefix=Fo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id").value(foo.getId()))
+                .andExpect(jsonPath("$.[0].name").value(foo.getName()))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                ;
+        ArgumentCaptor<EmployeeFilter> filter = ArgumentCaptor.forClass(EmployeeFilter.class);
+        verify(employeeRepository).search(filter.capture(), isNull(), anyInt());
+        assertEquals("it", filter.getValue().getDepartment());
+        assertEquals(500, filter.getValue().getMinSalary());
+        assertEquals(1500, filter.getValue().getMaxSalary());
+        assertEquals("Fo", filter.getValue().getNamePrefix());
+    }
+
+    @Test
+    public void testSearchEmployeesWithInvalidSalary() throws Exception {
+        this.mockMvc.perform(get("/api/v1/employees/search?minSalary=abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0]").value(CoreMatchers.containsString("must be a number")))
+                ;
+        verify(employeeRepository, never()).search(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testStreamEmployees() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        Employee bar = new Employee("Bar", 2, "it");
+        bar.setId(2l);
+        when(employeeRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(foo, bar));
+        MvcResult result = this.mockMvc.perform(get("/api/v1/employees/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].name").value(foo.getName()))
+                .andExpect(jsonPath("$.[1].name").value(bar.getName()))
+                ;
+        verify(employeeRepository, never()).findAll();
+    }
+
+    @Test
+    public void testStreamEmployeesNdjson() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        Employee bar = new Employee("Bar", 2, "it");
+        bar.setId(2l);
+        when(employeeRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(foo, bar));
+        MvcResult result = this.mockMvc.perform(get("/api/v1/employees/stream").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"Foo\""));
+        assertTrue(lines[1].startsWith("{") && lines[1].contains("\"Bar\""));
+    }
+
     @Test
     public void testGetEmployee() throws Exception {
         Employee foo = new Employee("Foo", 1, "it");
@@ -65,6 +237,24 @@ public class EmployeeControllerTest {
                 ;
     }
 
+    @Test
+    public void testCachedEmployeeNotShared() throws Exception {
+        when(employeeRepository.save(any(Employee.class))).thenAnswer(invocation -> {
+            Employee employee = invocation.getArgument(0);
+            employee.setId(888l);
+            return employee;
+        });
+        Employee foo = employeeService.saveEmployee(new Employee("Foo", 1, "it"));
+        // neither the saved instance nor a read one is the cached one.
+        foo.setName("Changed");
+        employeeService.getEmployee(888l).setName("Changed");
+        this.mockMvc.perform(get("/api/v1/employees/888"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Foo"))
+                ;
+        verify(employeeRepository, never()).findById(888l);
+    }
+
     @Test
     public void testGetEmployeeNotExist() throws Exception {
         when(employeeRepository.findById(1l)).thenReturn(Optional.empty());
@@ -74,6 +264,117 @@ public class EmployeeControllerTest {
                 ;
     }
 
+    @Test
+    public void testGetEmployeeCached() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        when(employeeRepository.findById(1l)).thenReturn(Optional.of(foo));
+        for (int i = 0; i < 2; i++) {
+            this.mockMvc.perform(get("/api/v1/employees/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value(foo.getName()))
+                    ;
+        }
+        verify(employeeRepository, times(1)).findById(1l);
+    }
+
+    @Test
+    public void testGetEmployeeNotModified() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        foo.setVersion(3l);
+        foo.setLastModified(Instant.parse("2021-12-01T00:00:00Z"));
+        when(employeeRepository.findById(1l)).thenReturn(Optional.of(foo));
+        this.mockMvc.perform(get("/api/v1/employees/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$.version").value(3))
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/1").header("If-Modified-Since", "Wed, 01 Dec 2021 00:00:00 GMT"))
+                .andExpect(status().isNotModified())
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/1").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value(foo.getName()))
+                ;
+    }
+
+    @Test
+    public void testGetEmployeesNotModified() throws Exception {
+        when(employeeRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(Collections.emptyList());
+        String etag = this.mockMvc.perform(get("/api/v1/employees"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        this.mockMvc.perform(get("/api/v1/employees").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                ;
+        verify(employeeRepository, times(1)).findAllByOrderByIdAsc(any(Pageable.class));
+
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        when(employeeRepository.findLockedById(1l)).thenReturn(Optional.of(foo));
+        when(employeeRepository.deleteEmployeeById(1l)).thenReturn(1);
+        this.mockMvc.perform(delete("/api/v1/employees/1"))
+                .andExpect(status().isOk())
+                ;
+        this.mockMvc.perform(get("/api/v1/employees").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", CoreMatchers.not(etag)))
+                ;
+    }
+
+    @Test
+    public void testGetEmployeeAfterUpdateNotStale() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        Employee bar = new Employee("Bar", 1000, "hr");
+        bar.setId(1l);
+        when(employeeRepository.findById(1l)).thenReturn(Optional.of(foo), Optional.of(bar));
+        when(employeeRepository.findLockedById(1l)).thenReturn(Optional.of(foo));
+        when(employeeRepository.updateById(eq(1l), eq("Bar"), eq(1000), eq("hr"), any())).thenReturn(1);
+        this.mockMvc.perform(get("/api/v1/employees/1"))
+                .andExpect(jsonPath("$.name").value(foo.getName()))
+                ;
+        this.mockMvc.perform(put("/api/v1/employees/1")
+                        .content("{\"id\":1, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/1"))
+                .andExpect(jsonPath("$.name").value(bar.getName()))
+                ;
+        verify(employeeRepository, times(2)).findById(1l);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        double notFound = meterRegistry.counter("apidemo.errors", "type", "not_found").count();
+        double malformedJson = meterRegistry.counter("apidemo.errors", "type", "malformed_json").count();
+        when(employeeRepository.findById(1l)).thenReturn(Optional.empty());
+        this.mockMvc.perform(get("/api/v1/employees/1"))
+                .andExpect(status().isNotFound())
+                ;
+        this.mockMvc.perform(post("/api/v1/employees")
+                        .content("{\"name\": ")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Malformed JSON request"))
+                ;
+        assertEquals(notFound + 1, meterRegistry.counter("apidemo.errors", "type", "not_found").count());
+        assertEquals(malformedJson + 1, meterRegistry.counter("apidemo.errors", "type", "malformed_json").count());
+        assertNotNull(meterRegistry.find("apidemo.service.invocations")
+                .tags("service", "EmployeeServiceImpl", "method", "getEmployee", "exception", "NoSuchElementException")
+                .timer());
+        assertNotNull(meterRegistry.find("http.server.requests").tag("uri", "/api/v1/employees/{employeeId}").timer());
+    }
+
     @Test
     public void testSaveEmployeeSuccess() throws Exception {
         Employee foo = new Employee("Foo", 1, "it");
@@ -119,13 +420,18 @@ public class EmployeeControllerTest {
 
     @Test
     public void testDeleteEmployee() throws Exception {
-        when(employeeRepository.existsById(1l)).thenReturn(true);
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(1l);
+        when(employeeRepository.findLockedById(1l)).thenReturn(Optional.of(foo));
+        when(employeeRepository.deleteEmployeeById(1l)).thenReturn(1);
         this.mockMvc.perform(delete("/api/v1/employees/1")
                         .accept(MediaType.APPLICATION_JSON_VALUE)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isOk())
                 ;
-        verify(employeeRepository).deleteById(1l);
+        verify(employeeRepository).deleteEmployeeById(1l);
+        verify(employeeRepository, never()).existsById(any());
+        verify(employeeRepository, never()).findById(any());
     }
 
     @Test
@@ -136,6 +442,7 @@ public class EmployeeControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").value(CoreMatchers.containsString("does not exist")))
         ;
+        verify(employeeRepository, never()).deleteEmployeeById(any());
         verify(employeeRepository, never()).deleteById(any());
     }
 
@@ -143,17 +450,66 @@ public class EmployeeControllerTest {
     public void testUpdateEmployeeSuccess() throws Exception {
         Employee foo = new Employee("Foo", 1, "it");
         foo.setId(888l);
-        when(employeeRepository.existsById(foo.getId())).thenReturn(true);
+        when(employeeRepository.findLockedById(888l)).thenReturn(Optional.of(foo));
+        when(employeeRepository.updateById(eq(888l), eq("Bar"), eq(1000), eq("hr"), any())).thenReturn(1);
         this.mockMvc.perform(put("/api/v1/employees/888")
                         .content("{\"id\":888, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}")
                         .accept(MediaType.APPLICATION_JSON_VALUE)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isOk())
                 ;
-        foo.setDepartment("hr");
-        foo.setName("Bar");
-        foo.setSalary(1000);
-        verify(employeeRepository).save(foo);
+        verify(employeeRepository).updateById(eq(888l), eq("Bar"), eq(1000), eq("hr"), any());
+        verify(employeeRepository, never()).existsById(any());
+        verify(employeeRepository, never()).save(any());
+    }
+
+    @Test
+    public void testUpdateEmployeeIfMatch() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        foo.setVersion(3l);
+        when(employeeRepository.findLockedById(888l)).thenReturn(Optional.of(foo));
+        when(employeeRepository.updateById(eq(888l), eq("Bar"), eq(1000), eq("hr"), any())).thenReturn(1);
+        this.mockMvc.perform(put("/api/v1/employees/888")
+                        .header("If-Match", "\"3\"")
+                        .content("{\"id\":888, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                ;
+        verify(employeeRepository).updateById(eq(888l), eq("Bar"), eq(1000), eq("hr"), any());
+    }
+
+    @Test
+    public void testUpdateEmployeeIfMatchModified() throws Exception {
+        double preconditionFailed = meterRegistry.counter("apidemo.errors", "type", "precondition_failed").count();
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        foo.setVersion(4l);
+        when(employeeRepository.findLockedById(888l)).thenReturn(Optional.of(foo));
+        this.mockMvc.perform(put("/api/v1/employees/888")
+                        .header("If-Match", "\"3\"")
+                        .content("{\"id\":888, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value(CoreMatchers.containsString("has been modified")))
+                ;
+        this.mockMvc.perform(delete("/api/v1/employees/888").header("If-Match", "W/\"4\""))
+                .andExpect(status().isPreconditionFailed())
+                ;
+        verify(employeeRepository, never()).updateById(any(), any(), any(), any(), any());
+        verify(employeeRepository, never()).deleteEmployeeById(any());
+        assertEquals(preconditionFailed + 2, meterRegistry.counter("apidemo.errors", "type", "precondition_failed").count());
+    }
+
+    @Test
+    public void testUpdateEmployeeNotExist() throws Exception {
+        this.mockMvc.perform(put("/api/v1/employees/888")
+                        .content("{\"id\":888, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value(CoreMatchers.containsString("does not exist")))
+                ;
     }
 
     @Test
@@ -169,6 +525,7 @@ public class EmployeeControllerTest {
                 .andExpect(jsonPath("$.errors.[0]").value(CoreMatchers.containsString("must not be null")))
         ;
         verify(employeeRepository, never()).save(any());
+        verify(employeeRepository, never()).updateById(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -195,4 +552,120 @@ public class EmployeeControllerTest {
         ;
         verify(employeeRepository, never()).save(any());
     }
+
+    @Test
+    public void testSaveEmployeesBatchSuccess() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        Employee bar = new Employee("Bar", 2, "hr");
+        bar.setId(889l);
+        when(employeeRepository.saveAll(any())).thenReturn(Arrays.asList(foo, bar));
+        this.mockMvc.perform(post("/api/v1/employees:batch")
+                        .content("[{\"name\": \"Foo\", \"salary\":1, \"department\":\"it\"}, {\"name\": \"Bar\", \"salary\":2, \"department\":\"hr\"}]")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id").value(foo.getId()))
+                .andExpect(jsonPath("$.[1].id").value(bar.getId()))
+                ;
+        verify(employeeRepository).saveAll(any());
+        verify(employeeRepository, never()).save(any());
+    }
+
+    @Test
+    public void testSaveEmployeesBatchNdjson() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        when(employeeRepository.saveAll(any())).thenReturn(Collections.singletonList(foo));
+        this.mockMvc.perform(post("/api/v1/employees:batch")
+                        .content("{\"name\": \"Foo\", \"salary\":1, \"department\":\"it\"}\n")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id").value(foo.getId()))
+                ;
+        verify(employeeRepository).saveAll(any());
+    }
+
+    @Test
+    public void testSaveEmployeesBatchWithErrors() throws Exception {
+        this.mockMvc.perform(post("/api/v1/employees:batch")
+                        .content("[{\"name\": \"Foo\", \"salary\":1, \"department\":\"it\"}, {\"name\": \"\", \"salary\":2, \"department\":\"hr\", \"id\": 123}]")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Validation error(s)"))
+                .andExpect(jsonPath("$.errors").value(CoreMatchers.hasItem("employees[1].name : must not be empty")))
+                .andExpect(jsonPath("$.errors").value(CoreMatchers.hasItem("employees[1].id : must not be specified.")))
+                ;
+        verify(employeeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testSaveEmployeesBatchWithErrorsAtOtherIndexes() throws Exception {
+        // messages are resolved once per field, whatever the index of the element.
+        for (int index = 0; index < 3; index++) {
+            StringBuilder content = new StringBuilder("[");
+            for (int i = 0; i < index; i++) {
+                content.append("{\"name\": \"Foo\", \"salary\":1, \"department\":\"it\"}, ");
+            }
+            content.append("{\"name\": \"\", \"salary\":2, \"department\":\"hr\", \"id\": 123}]");
+            this.mockMvc.perform(post("/api/v1/employees:batch")
+                            .content(content.toString())
+                            .accept(MediaType.APPLICATION_JSON_VALUE)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.errors").value(CoreMatchers.hasItem("employees[" + index + "].name : must not be empty")))
+                    .andExpect(jsonPath("$.errors").value(CoreMatchers.hasItem("employees[" + index + "].id : must not be specified.")))
+                    ;
+        }
+        verify(employeeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testSaveEmployeesBatchWithNullItem() throws Exception {
+        this.mockMvc.perform(post("/api/v1/employees:batch")
+                        .content("[{\"name\": \"Foo\", \"salary\":1, \"department\":\"it\"}, null]")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors").value(CoreMatchers.hasItem("employees[1] : must not be null.")))
+                ;
+        verify(employeeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testUpdateEmployeesBatchWithNullItem() throws Exception {
+        this.mockMvc.perform(put("/api/v1/employees:batch")
+                        .content("null\n{\"id\":888, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}\n")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors").value(CoreMatchers.hasItem("employees[0] : must not be null.")))
+                ;
+        verify(employeeRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void testUpdateEmployeesBatchNotExist() throws Exception {
+        when(employeeRepository.findAllById(any())).thenReturn(Collections.emptyList());
+        this.mockMvc.perform(put("/api/v1/employees:batch")
+                        .content("[{\"id\":888, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}]")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value(CoreMatchers.containsString("888")))
+                ;
+    }
+
+    @Test
+    public void testDeleteEmployeesBatch() throws Exception {
+        this.mockMvc.perform(delete("/api/v1/employees:batch")
+                        .content("[1, 2]")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                ;
+        verify(employeeRepository).deleteAllByIdInBatch(Arrays.asList(1l, 2l));
+    }
 }
@@ -0,0 +1,120 @@
+package jp.co.axa.apidemo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.domain.Pageable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Encodings of a page of employees as responded by the embedded server, which compresses them,
+ * unlike MockMvc. Their throughput is benchmarked by {@code EmployeeEncodingBenchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeEncodingTest {
+    private static final int EMPLOYEES = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+
+    @Test
+    public void testGetEmployeesEncodings() throws IOException {
+        List<Employee> employees = new ArrayList<>(EMPLOYEES);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            Employee employee = new Employee("Employee" + i, 1000 + i, "department" + (i % 10));
+            employee.setId((long) i);
+            employee.setVersion(0l);
+            employee.setLastModified(Instant.now());
+            employees.add(employee);
+        }
+        when(employeeRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(employees);
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("application/json", new ObjectMapper());
+        mappers.put("application/cbor", new ObjectMapper(new CBORFactory()));
+        mappers.put("application/x-jackson-smile", new ObjectMapper(new SmileFactory()));
+
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet()) {
+            byte[] identity = getEmployees(mapper.getKey(), false);
+            byte[] gzipped = getEmployees(mapper.getKey(), true);
+            assertTrue(gzipped.length < identity.length, mapper.getKey());
+            for (byte[] body : new byte[][] {identity, gunzip(gzipped)}) {
+                JsonNode page = mapper.getValue().readTree(body);
+                assertEquals(EMPLOYEES, page.size());
+                assertEquals(employees.get(7).getName(), page.get(7).get("name").asText());
+                assertEquals(employees.get(7).getId(), page.get(7).get("id").asLong());
+            }
+            sizes.put(mapper.getKey(), identity.length);
+        }
+        assertTrue(sizes.get("application/cbor") < sizes.get("application/json"));
+        assertTrue(sizes.get("application/x-jackson-smile") < sizes.get("application/json"));
+    }
+
+    /**
+     * Get the page of employees in the media type, gzipped or not, asserting the headers of the response.
+     */
+    private byte[] getEmployees(String mediaType, boolean gzip) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/api/v1/employees?limit=" + EMPLOYEES).openConnection();
+        connection.setRequestProperty("Accept", mediaType);
+        if (gzip) {
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+        }
+        try {
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith(mediaType), connection.getContentType());
+            if (gzip) {
+                assertEquals("gzip", connection.getContentEncoding());
+            } else {
+                assertNull(connection.getContentEncoding());
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return readAll(in);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return readAll(in);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
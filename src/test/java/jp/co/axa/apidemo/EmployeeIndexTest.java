@@ -0,0 +1,30 @@
+package jp.co.axa.apidemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans of the queries of employees in id order, on a database of their own, generated with the indexes of
+ * {@link jp.co.axa.apidemo.entities.Employee}.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:indexes")
+public class EmployeeIndexTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testSearchOfDepartmentUsesIndex() {
+        assertTrue(explain("select ID from EMPLOYEE where DEPARTMENT = 'it' and ID > 1 order by ID limit 50")
+                .contains("IDX_EMPLOYEE_DEPARTMENT_ID: DEPARTMENT = 'it' AND ID > 1"));
+        assertTrue(explain("select min(EMPLOYEE_SALARY) from EMPLOYEE where DEPARTMENT = 'it'")
+                .contains("IDX_EMPLOYEE_DEPARTMENT_SALARY"));
+    }
+
+    private String explain(String query) {
+        return jdbcTemplate.queryForObject("explain " + query, String.class).replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,72 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.models.EmployeeFilter;
+import jp.co.axa.apidemo.models.EmployeeSummary;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+public class EmployeeRepositoryTest {
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Test
+    public void testSearchByDepartmentAndSalaryRange() {
+        employeeRepository.saveAll(Arrays.asList(
+                new Employee("Qux", 1500, "it"),
+                new Employee("Quux", 3000, "it")
+        ));
+        EmployeeFilter filter = new EmployeeFilter();
+        filter.setDepartment("it");
+        filter.setMinSalary(1500);
+        filter.setMaxSalary(2000);
+        List<String> names = employeeRepository.search(filter, null, 10).stream()
+                .map(EmployeeSummary::getName)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("Bar", "Qux"), names);
+    }
+
+    @Test
+    public void testSearchByNamePrefixEscapesWildcards() {
+        employeeRepository.saveAll(Arrays.asList(
+                new Employee("B%z", 1, "hr"),
+                new Employee("Bzz", 1, "hr")
+        ));
+        EmployeeFilter filter = new EmployeeFilter();
+        filter.setNamePrefix("B%");
+        List<EmployeeSummary> found = employeeRepository.search(filter, null, 10);
+        assertEquals(1, found.size());
+        assertEquals("B%z", found.get(0).getName());
+    }
+
+    @Test
+    public void testSearchPagesByKeyset() {
+        EmployeeFilter filter = new EmployeeFilter();
+        List<EmployeeSummary> first = employeeRepository.search(filter, null, 2);
+        assertEquals(Arrays.asList(0l, 1l), first.stream().map(EmployeeSummary::getId).collect(Collectors.toList()));
+        List<EmployeeSummary> second = employeeRepository.search(filter, first.get(1).getId(), 2);
+        assertEquals(Arrays.asList(2l), second.stream().map(EmployeeSummary::getId).collect(Collectors.toList()));
+        assertTrue(employeeRepository.search(filter, 2l, 2).isEmpty());
+    }
+
+    @Test
+    public void testFindFieldsSelectsOnlySpecifiedFields() {
+        List<Map<String, Object>> rows = employeeRepository.findFields(Arrays.asList("id", "name"), 0l, 1);
+        assertEquals(1, rows.size());
+        assertEquals(Arrays.asList("id", "name"), new ArrayList<>(rows.get(0).keySet()));
+        assertEquals(1l, rows.get(0).get("id"));
+        assertEquals("Bar", rows.get(0).get("name"));
+    }
+}
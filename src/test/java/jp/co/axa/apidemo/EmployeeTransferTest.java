@@ -0,0 +1,140 @@
+package jp.co.axa.apidemo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer",
+        "apidemo.batch.chunk-size=2",
+})
+@AutoConfigureMockMvc
+public class EmployeeTransferTest {
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testImportCsv() throws Exception {
+        long count = employeeRepository.count();
+        this.mockMvc.perform(post("/api/v1/employees:import")
+                        .content("id,name,salary,department\n" +
+                                "99,\"Doe, \"\"J\"\"\",100,csv\r\n" +
+                                "\n" +
+                                ",Roe,,csv\n" +
+                                ",\"Multi\nLine\",300,csv")
+                        .contentType(TEXT_CSV))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.skipped").value(0))
+                ;
+        assertEquals(count + 3, employeeRepository.count());
+        this.mockMvc.perform(get("/api/v1/departments/stats?department=csv"))
+                .andExpect(jsonPath("$.[0].headcount").value(3))
+                .andExpect(jsonPath("$.[0].totalSalary").value(400))
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/search?department=csv"))
+                .andExpect(jsonPath("$.[0].name").value("Doe, \"J\""))
+                .andExpect(jsonPath("$.[2].name").value("Multi\nLine"))
+                ;
+    }
+
+    @Test
+    public void testImportInvalidAndResume() throws Exception {
+        long count = employeeRepository.count();
+        String invalid = "{\"name\":\"A\",\"salary\":1,\"department\":\"resume\"}\n" +
+                "{\"name\":\"B\",\"salary\":2,\"department\":\"resume\"}\n" +
+                "{\"name\":\"C\",\"salary\":3,\"department\":\"resume\"}\n" +
+                "{\"name\":\"D\",\"salary\":-4,\"department\":\"resume\"}\n";
+        this.mockMvc.perform(post("/api/v1/employees:import?checkpoint=resume")
+                        .content(invalid)
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0]").value(CoreMatchers.startsWith("records[4].salary")))
+                ;
+        // the batch before the invalid record is committed along with the checkpoint.
+        assertEquals(count + 2, employeeRepository.count());
+
+        this.mockMvc.perform(post("/api/v1/employees:import?checkpoint=resume")
+                        .content(invalid.replace("-4", "4"))
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.checkpoint").value("resume"))
+                .andExpect(jsonPath("$.skipped").value(2))
+                .andExpect(jsonPath("$.imported").value(2))
+                ;
+        assertEquals(count + 4, employeeRepository.count());
+    }
+
+    @Test
+    public void testImportCsvWithoutColumns() throws Exception {
+        this.mockMvc.perform(post("/api/v1/employees:import")
+                        .content("name,department\nFoo,it\n")
+                        .contentType(TEXT_CSV))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0]").value(CoreMatchers.containsString("must have columns")))
+                ;
+    }
+
+    @Test
+    public void testExportCsv() throws Exception {
+        MvcResult result = this.mockMvc.perform(get("/api/v1/employees:export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(TEXT_CSV))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals("id,name,salary,department", lines[0]);
+        assertEquals("0,Foo,1000,it", lines[1]);
+    }
+
+    @Test
+    public void testExportNdjson() throws Exception {
+        MvcResult result = this.mockMvc.perform(get("/api/v1/employees:export?format=ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(0, first.get("id").asLong());
+        assertEquals("Foo", first.get("name").asText());
+        assertTrue(body.endsWith("\n"));
+    }
+
+    @Test
+    public void testExportUnknownFormat() throws Exception {
+        this.mockMvc.perform(get("/api/v1/employees:export?format=xml"))
+                .andExpect(status().isBadRequest())
+                ;
+    }
+}
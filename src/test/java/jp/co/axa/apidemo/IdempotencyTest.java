@@ -0,0 +1,161 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class IdempotencyTest {
+    private static final String FOO = "{\"name\": \"Foo\", \"salary\":1, \"department\":\"it\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+
+    @Test
+    public void testSaveEmployeeReplayed() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        when(employeeRepository.save(any(Employee.class))).thenReturn(foo);
+        String key = UUID.randomUUID().toString();
+        saveEmployee(key, FOO)
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andExpect(jsonPath("$.id").value(888))
+                ;
+        saveEmployee(key, FOO)
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(888))
+                ;
+        // without a key, every request is written.
+        saveEmployee(null, FOO).andExpect(status().isOk());
+        verify(employeeRepository, times(2)).save(any());
+    }
+
+    @Test
+    public void testSaveEmployeeKeyOfAnotherRequest() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        when(employeeRepository.save(any(Employee.class))).thenReturn(foo);
+        String key = UUID.randomUUID().toString();
+        saveEmployee(key, FOO).andExpect(status().isOk());
+        saveEmployee(key, "{\"name\": \"Bar\", \"salary\":1, \"department\":\"it\"}")
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value("The Idempotency-Key has been used by another request"))
+                ;
+        verify(employeeRepository, times(1)).save(any());
+    }
+
+    @Test
+    public void testSaveEmployeeFieldsReordered() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        when(employeeRepository.save(any(Employee.class))).thenReturn(foo);
+        String key = UUID.randomUUID().toString();
+        saveEmployee(key, FOO).andExpect(status().isOk());
+        saveEmployee(key, "{\"department\":\"it\", \"salary\":1, \"name\": \"Foo\"}")
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(888))
+                ;
+        verify(employeeRepository, times(1)).save(any());
+    }
+
+    @Test
+    public void testSaveEmployeeInProgress() throws Exception {
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch saved = new CountDownLatch(1);
+        when(employeeRepository.save(any(Employee.class))).thenAnswer(invocation -> {
+            saving.countDown();
+            saved.await(5, TimeUnit.SECONDS);
+            return foo;
+        });
+        String key = UUID.randomUUID().toString();
+        CompletableFuture<ResultActions> first = CompletableFuture.supplyAsync(() -> saveEmployee(key, FOO));
+        saving.await(5, TimeUnit.SECONDS);
+        // rejected at once rather than waiting for the first.
+        saveEmployee(key, FOO)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("A request with the Idempotency-Key is still in progress"))
+                ;
+        saved.countDown();
+        first.get(5, TimeUnit.SECONDS).andExpect(status().isOk()).andExpect(jsonPath("$.id").value(888));
+        saveEmployee(key, FOO).andExpect(status().isOk()).andExpect(jsonPath("$.id").value(888))
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+        verify(employeeRepository, times(1)).save(any());
+    }
+
+    @Test
+    public void testUpdateEmployeeRetriedAfterFailure() throws Exception {
+        String key = UUID.randomUUID().toString();
+        updateEmployee(key).andExpect(status().isNotFound());
+
+        Employee foo = new Employee("Foo", 1, "it");
+        foo.setId(888l);
+        when(employeeRepository.findLockedById(888l)).thenReturn(Optional.of(foo));
+        when(employeeRepository.updateById(eq(888l), eq("Bar"), eq(1000), eq("hr"), any())).thenReturn(1);
+        updateEmployee(key)
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                ;
+        updateEmployee(key)
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                ;
+        verify(employeeRepository, times(1)).updateById(eq(888l), eq("Bar"), eq(1000), eq("hr"), any());
+    }
+
+    private ResultActions saveEmployee(String key, String content) {
+        MockHttpServletRequestBuilder request = post("/api/v1/employees")
+                .content(content)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .contentType(MediaType.APPLICATION_JSON_VALUE);
+        if (key != null) {
+            request.header("Idempotency-Key", key);
+        }
+        try {
+            return this.mockMvc.perform(request);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ResultActions updateEmployee(String key) throws Exception {
+        return this.mockMvc.perform(put("/api/v1/employees/888")
+                .header("Idempotency-Key", key)
+                .content("{\"id\":888, \"name\": \"Bar\", \"salary\":1000, \"department\":\"hr\"}")
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .contentType(MediaType.APPLICATION_JSON_VALUE));
+    }
+}
@@ -0,0 +1,35 @@
+package jp.co.axa.apidemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("lean")
+@AutoConfigureMockMvc
+public class LeanProfileTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testApiServed() throws Exception {
+        this.mockMvc.perform(get("/api/v1/employees/0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Foo"))
+                ;
+    }
+
+    @Test
+    public void testApiDocumentationNotServed() throws Exception {
+        this.mockMvc.perform(get("/v3/api-docs"))
+                .andExpect(status().isNotFound())
+                ;
+    }
+}
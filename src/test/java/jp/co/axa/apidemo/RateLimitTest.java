@@ -0,0 +1,45 @@
+package jp.co.axa.apidemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"apidemo.rate-limit.enabled=true", "apidemo.rate-limit.rate=0.1", "apidemo.rate-limit.burst=6"})
+@AutoConfigureMockMvc
+public class RateLimitTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testRejectedOverRate() throws Exception {
+        // a page costs 5 of 6 tokens, leaving one for a single employee.
+        this.mockMvc.perform(get("/api/v1/employees"))
+                .andExpect(status().isOk())
+                ;
+        this.mockMvc.perform(get("/api/v1/employees"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "40"))
+                .andExpect(jsonPath("$.message").value("Too many requests"))
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/0"))
+                .andExpect(status().isOk())
+                ;
+        this.mockMvc.perform(get("/api/v1/employees/0"))
+                .andExpect(status().isTooManyRequests())
+                ;
+        // other clients have buckets of their own.
+        this.mockMvc.perform(get("/api/v1/employees/0").with(request -> {
+                    request.setRemoteAddr("192.0.2.1");
+                    return request;
+                }))
+                .andExpect(status().isOk())
+                ;
+    }
+}
@@ -0,0 +1,53 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.entities.Employee;
+import jp.co.axa.apidemo.services.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the h2file profile, started and restarted on a database in a temporary directory.
+ */
+public class StorageProfileTest {
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void testH2FileKeepsEmployees() {
+        Long id;
+        try (ConfigurableApplicationContext context = start()) {
+            id = context.getBean(EmployeeService.class).saveEmployee(new Employee("Persistent", 100, "file")).getId();
+        }
+        try (ConfigurableApplicationContext context = start()) {
+            EmployeeService employeeService = context.getBean(EmployeeService.class);
+            assertEquals("Persistent", employeeService.getEmployee(id).getName());
+            // sequences carry on past the ids allocated before the restart.
+            Long next = employeeService.saveEmployee(new Employee("Next", 100, "file")).getId();
+            assertEquals(1, Long.signum(next - id));
+        }
+    }
+
+    @Test
+    public void testH2FileRejectsCreateDrop() {
+        assertThrows(Exception.class, () -> start("--spring.jpa.hibernate.ddl-auto=create-drop").close());
+    }
+
+    private ConfigurableApplicationContext start(String... args) {
+        String[] arguments = new String[args.length + 3];
+        arguments[0] = "--spring.profiles.active=h2file";
+        arguments[1] = "--apidemo.data-dir=" + dataDir;
+        arguments[2] = "--logging.level.root=WARN";
+        System.arraycopy(args, 0, arguments, 3, args.length);
+        return new SpringApplicationBuilder(ApiDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments);
+    }
+}
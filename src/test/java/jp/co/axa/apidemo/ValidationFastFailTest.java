@@ -0,0 +1,55 @@
+package jp.co.axa.apidemo;
+
+import jp.co.axa.apidemo.repositories.EmployeeRepository;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "apidemo.validation.fast-fail=true")
+@AutoConfigureMockMvc
+public class ValidationFastFailTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+
+    @Test
+    public void testSaveEmployeeStopsAtFirstViolation() throws Exception {
+        this.mockMvc.perform(post("/api/v1/employees")
+                        .content("{\"name\": \"\", \"salary\":-1, \"department\":\"\"}")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Validation error(s)"))
+                .andExpect(jsonPath("$.errors.length()").value(1))
+                ;
+        verify(employeeRepository, never()).save(any());
+    }
+
+    @Test
+    public void testUpdateEmployeeKeepsControllerChecks() throws Exception {
+        this.mockMvc.perform(put("/api/v1/employees/1")
+                        .content("{\"name\": \"\", \"salary\":-1, \"department\":\"\", \"id\": 2}")
+                        .accept(MediaType.APPLICATION_JSON_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.length()").value(2))
+                .andExpect(jsonPath("$.errors").value(CoreMatchers.hasItem("id : Id(s) must be consistent.")))
+                ;
+        verify(employeeRepository, never()).save(any());
+    }
+}